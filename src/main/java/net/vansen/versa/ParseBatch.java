@@ -0,0 +1,72 @@
+package net.vansen.versa;
+
+import net.vansen.versa.node.Node;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Outcome of parsing many files at once with {@link Versa#parseAll(java.util.Collection)}.
+ * <p>
+ * Every file ends up in exactly one of {@link #nodes()} or {@link #errors()}, both in the order the
+ * files were given. A broken file does not stop the others from being parsed.
+ */
+@SuppressWarnings("unused")
+public final class ParseBatch {
+    private final Map<Path, Node> nodes;
+    private final Map<Path, RuntimeException> errors;
+
+    ParseBatch(@NotNull Map<Path, Node> nodes, @NotNull Map<Path, RuntimeException> errors) {
+        this.nodes = Collections.unmodifiableMap(nodes);
+        this.errors = Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * @return parsed trees of the files that parsed without error
+     */
+    public @NotNull Map<Path, Node> nodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the failure of each file that could not be read or parsed,
+     * usually an {@link java.io.UncheckedIOException} or a {@link net.vansen.versa.parser.VersaParser.VersaParseException}
+     */
+    public @NotNull Map<Path, RuntimeException> errors() {
+        return errors;
+    }
+
+    /**
+     * @return the tree parsed from {@code path}, or null if it failed or was not part of the batch
+     */
+    public @Nullable Node get(@NotNull Path path) {
+        return nodes.get(path);
+    }
+
+    /**
+     * @return whether every file parsed
+     */
+    public boolean ok() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * Throws if any file failed, with one line per failed file and the other failures attached as suppressed.
+     *
+     * @return this batch, for chaining
+     */
+    public @NotNull ParseBatch orThrow() {
+        if (errors.isEmpty()) return this;
+
+        StringBuilder sb = new StringBuilder(errors.size() + " of " + (nodes.size() + errors.size()) + " files failed to parse");
+        for (Map.Entry<Path, RuntimeException> e : errors.entrySet())
+            sb.append("\n  ").append(e.getKey()).append(": ").append(e.getValue().getMessage());
+
+        IllegalStateException ex = new IllegalStateException(sb.toString());
+        for (RuntimeException e : errors.values()) ex.addSuppressed(e);
+        throw ex;
+    }
+}
@@ -1,44 +1,324 @@
 package net.vansen.versa;
 
-import net.vansen.fursconfig.file.FileTextReader;
 import net.vansen.versa.node.Node;
+import net.vansen.versa.parser.MappedReader;
+import net.vansen.versa.parser.ParseProjection;
+import net.vansen.versa.parser.VersaHandler;
 import net.vansen.versa.parser.VersaParser;
+import net.vansen.versa.utils.StringPool;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @SuppressWarnings("unused")
 public final class Versa {
+    private static final int REUSE_LIMIT = 1 << 16;
+    private static final ThreadLocal<VersaParser[]> PARSER = ThreadLocal.withInitial(() -> new VersaParser[1]);
+    private static final MethodHandle VIRTUAL = virtual();
 
     private Versa() {
     }
 
     /**
      * Parse configuration from a raw text string.
+     * Texts up to 64K chars reuse a parser kept per thread, so small fragments
+     * do not pay for setting up a new parser each time.
      */
     public static Node parseText(@NotNull String text) {
-        return new VersaParser(text).parse();
+        if (text.length() > REUSE_LIMIT) return new VersaParser(text).parse();
+
+        VersaParser[] slot = PARSER.get();
+        VersaParser p = slot[0];
+        if (p == null) p = new VersaParser("");
+        slot[0] = null;
+        try {
+            p.pool = StringPool.global();
+            return p.reset(text).parse();
+        } finally {
+            slot[0] = p;
+        }
+    }
+
+    /**
+     * Parse configuration from a raw text string, reporting each statement to the handler
+     * instead of building a {@link Node} tree.
+     */
+    public static void parseText(@NotNull String text, @NotNull VersaHandler handler) {
+        new VersaParser(text).parse(handler);
+    }
+
+    /**
+     * Parse configuration from a raw text string, splitting large inputs at top-level
+     * statements and parsing the pieces on the common fork-join pool.
+     *
+     * @see VersaParser#parseParallel()
+     */
+    public static Node parseTextParallel(@NotNull String text) {
+        return new VersaParser(text).parseParallel();
+    }
+
+    /**
+     * Read a whole UTF-8 file and parse it on the common fork-join pool.
+     *
+     * @see VersaParser#parseParallel()
+     */
+    public static Node parseParallel(@NotNull Path path) {
+        try {
+            return parseTextParallel(Files.readString(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parse configuration from a raw text string, building each branch only when it is first used.
+     *
+     * @see VersaParser#parseLazy()
+     */
+    public static Node parseTextLazy(@NotNull String text) {
+        return new VersaParser(text).parseLazy();
+    }
+
+    /**
+     * Read a whole UTF-8 file and parse it lazily, building each branch only when it is first used.
+     *
+     * @see VersaParser#parseLazy()
+     */
+    public static Node parseLazy(@NotNull Path path) {
+        try {
+            return parseTextLazy(Files.readString(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Re-parse a changed text, splicing only the re-parsed branches into {@code previous}.
+     *
+     * @see VersaParser#reparse(Node, String, String, int, int)
+     */
+    public static Node reparse(@NotNull Node previous, @NotNull String oldText, @NotNull String newText) {
+        return VersaParser.reparse(previous, oldText, newText);
     }
 
     /**
      * Read and parse configuration from a file path.
      */
     public static Node parse(@NotNull String file) {
-        return parseText(FileTextReader.read(file));
+        return parse(Paths.get(file));
     }
 
     /**
      * Read and parse configuration from a {@link File}.
      */
     public static Node parse(@NotNull File file) {
-        return parseText(FileTextReader.read(file));
+        return parse(file.toPath());
     }
 
     /**
      * Read and parse configuration from a {@link Path}.
+     * The file is streamed as UTF-8 and never held in memory as a whole. Its bytes are scanned
+     * directly, and only the keys, values and comments that are kept are decoded.
      */
     public static Node parse(@NotNull Path path) {
-        return parseText(FileTextReader.read(path));
+        try (FileChannel ch = FileChannel.open(path)) {
+            return parse(ch);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stream a UTF-8 file through the handler without building a {@link Node} tree.
+     */
+    public static void parse(@NotNull Path path, @NotNull VersaHandler handler) {
+        try (FileChannel ch = FileChannel.open(path)) {
+            new VersaParser(ch).parse(handler);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stream a UTF-8 file, building only the given dotted paths and the branches leading to them.
+     * Everything else is skipped without being parsed.
+     *
+     * @see VersaParser#parse(ParseProjection)
+     */
+    public static Node parse(@NotNull Path path, @NotNull Set<String> paths) {
+        return parse(path, ParseProjection.of(paths));
+    }
+
+    /**
+     * Stream a UTF-8 file, building only the paths selected by the projection.
+     *
+     * @see VersaParser#parse(ParseProjection)
+     */
+    public static Node parse(@NotNull Path path, @NotNull ParseProjection projection) {
+        try (FileChannel ch = FileChannel.open(path)) {
+            return new VersaParser(ch).parse(projection);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read and parse configuration from a memory-mapped {@link Path}.
+     * UTF-8 is decoded on the fly from the mapping, which suits very large files
+     * and benefits from the OS page cache when the same file is loaded again.
+     */
+    public static Node parseMapped(@NotNull Path path) {
+        try (MappedReader r = new MappedReader(path)) {
+            return parse(r);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parse configuration incrementally from a {@link Reader}.
+     * The reader is not closed.
+     */
+    public static Node parse(@NotNull Reader reader) {
+        return new VersaParser(reader).parse();
+    }
+
+    /**
+     * Parse UTF-8 configuration incrementally from an {@link InputStream}.
+     * The stream is not closed.
+     */
+    public static Node parse(@NotNull InputStream in) {
+        return parse(Channels.newChannel(in));
+    }
+
+    /**
+     * Parse UTF-8 configuration incrementally from a {@link ReadableByteChannel}.
+     * The channel is not closed.
+     */
+    public static Node parse(@NotNull ReadableByteChannel channel) {
+        return new VersaParser(channel).parse();
+    }
+
+    /**
+     * Parse configuration from UTF-8 bytes without decoding them to a string first.
+     */
+    public static Node parse(byte @NotNull [] utf8) {
+        return new VersaParser(utf8).parse();
+    }
+
+    /**
+     * Parse configuration from the remaining UTF-8 bytes of a buffer, such as a mapped file.
+     */
+    public static Node parse(@NotNull ByteBuffer utf8) {
+        return new VersaParser(utf8).parse();
+    }
+
+    /**
+     * Read and parse many files concurrently, one task per file.
+     * <p>
+     * On Java 21 and newer each file gets its own virtual thread, so the batch is bounded by I/O
+     * and cores rather than by the sum of the parses. On older runtimes a platform pool sized for
+     * I/O-bound work is used instead. Each file is parsed like {@link #parse(Path)}.
+     *
+     * @param paths files to parse; duplicates are parsed once
+     * @return parsed trees and per-file errors, in the order the files were given
+     */
+    public static @NotNull ParseBatch parseAll(@NotNull Collection<Path> paths) {
+        Map<Path, Future<Node>> tasks = new LinkedHashMap<>();
+        ExecutorService ex = executor(paths.size());
+        try {
+            for (Path p : paths) if (!tasks.containsKey(p)) tasks.put(p, ex.submit(() -> parse(p)));
+        } finally {
+            ex.shutdown();
+        }
+
+        Map<Path, Node> nodes = new LinkedHashMap<>();
+        Map<Path, RuntimeException> errors = new LinkedHashMap<>();
+        boolean interrupted = false;
+        for (Map.Entry<Path, Future<Node>> e : tasks.entrySet()) {
+            while (true) {
+                try {
+                    nodes.put(e.getKey(), e.getValue().get());
+                    break;
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                } catch (ExecutionException ee) {
+                    Throwable c = ee.getCause();
+                    if (c instanceof Error) throw (Error) c;
+                    errors.put(e.getKey(), c instanceof RuntimeException ? (RuntimeException) c : new RuntimeException(c));
+                    break;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        return new ParseBatch(nodes, errors);
+    }
+
+    /**
+     * Parse every file directly inside {@code dir} whose name matches {@code glob}, such as {@code "*.versa"}.
+     * Subdirectories are not searched.
+     *
+     * @see #parseAll(Collection)
+     */
+    public static @NotNull ParseBatch parseDirectory(@NotNull Path dir, @NotNull String glob) {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, glob)) {
+            for (Path p : ds) if (Files.isRegularFile(p)) paths.add(p);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        paths.sort(null);
+        return parseAll(paths);
+    }
+
+    private static ExecutorService executor(int tasks) {
+        if (VIRTUAL != null) {
+            try {
+                return (ExecutorService) VIRTUAL.invokeExact();
+            } catch (Throwable ignored) {
+            }
+        }
+        int n = Math.max(1, Math.min(tasks, Runtime.getRuntime().availableProcessors() * 2));
+        return Executors.newFixedThreadPool(n, r -> {
+            Thread t = new Thread(r, "versa-parse");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @return {@code Executors.newVirtualThreadPerTaskExecutor()} when the runtime has it, else null
+     */
+    private static MethodHandle virtual() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
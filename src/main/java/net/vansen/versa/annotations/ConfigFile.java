@@ -19,4 +19,14 @@ public @interface ConfigFile {
      * @return path to config file on disk
      */
     @NotNull String value();
+
+    /**
+     * When true, only the paths bound by the class's {@link ConfigPath} and {@link Branch} fields are parsed,
+     * and the rest of the file is skipped. Suits small classes bound against a large shared file.
+     * {@link ConfigLoader#node(Class)} then returns that partial tree, and a reload parses the file again
+     * the same way instead of re-parsing only the changed part.
+     *
+     * @return whether to parse only the bound paths
+     */
+    boolean projected() default false;
 }
\ No newline at end of file
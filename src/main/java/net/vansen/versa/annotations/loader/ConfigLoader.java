@@ -15,6 +15,10 @@ import net.vansen.versa.builder.ValueBuilder;
 import net.vansen.versa.comments.CommentType;
 import net.vansen.versa.node.Node;
 import net.vansen.versa.node.Value;
+import net.vansen.versa.node.VersaPath;
+import net.vansen.versa.node.value.PackedList;
+import net.vansen.versa.parser.ParseProjection;
+import net.vansen.versa.parser.VersaParser;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -62,9 +66,19 @@ import java.util.Map;
 @SuppressWarnings({"unused", "unchecked"})
 public final class ConfigLoader {
 
+    /**
+     * Largest file, in bytes, whose text is kept between loads so that {@link #reload()} can re-parse
+     * only what changed. Larger files are streamed and parsed in full on every load.
+     */
+    private static final long REPARSE_LIMIT = 1 << 18;
+
     private static final List<Class<?>> loaded = new ArrayList<>();
     private static final Map<Class<?>, Node> nodes = new HashMap<>();
+    private static final Map<Class<?>, String> texts = new HashMap<>();
+    private static final Map<Class<?>, Integer> revisions = new HashMap<>();
     private static final Map<Field, Object> defaults = new HashMap<>();
+    private static final Map<Class<?>, ParseProjection> projections = new HashMap<>();
+    private static final Map<String, VersaPath> paths = new HashMap<>();
 
     private ConfigLoader() {
     }
@@ -95,6 +109,10 @@ public final class ConfigLoader {
     /**
      * Reloads all previously loaded configuration classes from disk.
      * Restores values from the config while keeping defaults for missing keys.
+     * <p>
+     * For files up to 256 KB, only the parts that changed since the last load are re-parsed, and they
+     * are spliced into the existing tree returned by {@link #node(Class)}. If that tree was edited since,
+     * or the file is larger, the file is parsed in full into a new tree.
      */
     public static void reload() {
         for (Class<?> c : loaded) apply(c);
@@ -135,7 +153,24 @@ public final class ConfigLoader {
             ConfigFile file = rootCls.getAnnotation(ConfigFile.class);
             if (file == null) return;
 
-            Node root = Versa.parse(file.value());
+            Node root;
+            if (file.projected()) {
+                root = Versa.parse(Path.of(file.value()), projections.computeIfAbsent(rootCls, ConfigLoader::projection));
+            } else {
+                Path path = Path.of(file.value());
+                Node prev = nodes.get(rootCls);
+                String old = texts.remove(rootCls);
+                Integer rev = revisions.get(rootCls);
+                if (Files.size(path) > REPARSE_LIMIT) {
+                    root = Versa.parse(path);
+                } else {
+                    String text = Files.readString(path);
+                    boolean same = prev != null && old != null && rev != null && prev.revision() == rev;
+                    root = same ? VersaParser.reparse(prev, old, text) : Versa.parseText(text);
+                    texts.put(rootCls, text);
+                }
+                revisions.put(rootCls, root.revision());
+            }
             nodes.put(rootCls, root);
 
             for (Field f : rootCls.getDeclaredFields()) {
@@ -160,6 +195,40 @@ public final class ConfigLoader {
         }
     }
 
+    /**
+     * Collects the paths bound by the fields of a config class, resolving branch names like {@link #apply}.
+     */
+    private static @NotNull ParseProjection projection(@NotNull Class<?> rootCls) {
+        List<String> paths = new ArrayList<>();
+        for (Field f : rootCls.getDeclaredFields()) {
+            if (!Modifier.isStatic(f.getModifiers())) continue;
+            if (f.getAnnotation(Branch.class) != null) {
+                branchPaths(branchName(f.getType()) + ".", f.getType(), paths);
+                continue;
+            }
+            ConfigPath cp = f.getAnnotation(ConfigPath.class);
+            if (cp != null) paths.add(cp.value());
+        }
+        return ParseProjection.of(paths);
+    }
+
+    private static void branchPaths(@NotNull String prefix, @NotNull Class<?> type, @NotNull List<String> paths) {
+        for (Field f : type.getDeclaredFields()) {
+            if (Modifier.isStatic(f.getModifiers())) continue;
+            if (f.getAnnotation(Branch.class) != null) {
+                branchPaths(prefix + branchName(f.getType()) + ".", f.getType(), paths);
+                continue;
+            }
+            ConfigPath cp = f.getAnnotation(ConfigPath.class);
+            if (cp != null) paths.add(prefix + cp.value());
+        }
+    }
+
+    private static @NotNull String branchName(@NotNull Class<?> type) {
+        ConfigPath cp = type.getAnnotation(ConfigPath.class);
+        return cp != null ? cp.value() : type.getSimpleName().toLowerCase();
+    }
+
     private static void loadBranchField(@NotNull Node root, @NotNull Field branchField) {
         Class<?> branchType = branchField.getType();
         ConfigPath clsPath = branchType.getAnnotation(ConfigPath.class);
@@ -212,8 +281,9 @@ public final class ConfigLoader {
         }
     }
 
-    private static @Nullable Object fetch(@NotNull Node root, @NotNull String path, @NotNull Field f) {
+    private static @Nullable Object fetch(@NotNull Node root, @NotNull String text, @NotNull Field f) {
         Class<?> t = f.getType();
+        VersaPath path = compiled(text);
 
         if (t == String.class) return root.getString(path);
         if (t == int.class || t == Integer.class) return root.getInteger(path);
@@ -240,11 +310,7 @@ public final class ConfigLoader {
                 return list;
             }
 
-            if (v.list != null) {
-                List<Object> out = new ArrayList<>();
-                for (Value x : v.list) out.add(x.raw());
-                return out;
-            }
+            if (v.list != null) return raws(v.list);
             return null;
         }
 
@@ -286,11 +352,7 @@ public final class ConfigLoader {
                 return list;
             }
 
-            if (v.list != null) {
-                List<Object> out = new ArrayList<>();
-                for (Value x : v.list) out.add(x.raw());
-                return out;
-            }
+            if (v.list != null) return raws(v.list);
             return null;
         }
 
@@ -304,22 +366,26 @@ public final class ConfigLoader {
         return null;
     }
 
-    private static @Nullable Node find(@NotNull Node n, @NotNull String path) {
+    /**
+     * Raw elements of a list; packed lists are read without building a {@link Value} per element.
+     */
+    private static List<Object> raws(List<Value> l) {
+        List<Object> out = new ArrayList<>(l.size());
+        if (l instanceof PackedList p) for (int i = 0; i < p.size(); i++) out.add(p.raw(i));
+        else for (Value x : l) out.add(x.raw());
+        return out;
+    }
+
+    private static @Nullable Node find(@NotNull Node n, @NotNull VersaPath path) {
         Node cur = n;
-        for (String p : path.split("\\.")) {
-            boolean ok = false;
-            for (Node c : cur.children) {
-                if (p.equals(c.name)) {
-                    cur = c;
-                    ok = true;
-                    break;
-                }
-            }
-            if (!ok) return null;
-        }
+        for (int i = 0; i < path.size() && cur != null; i++) cur = cur.getBranch(path.segment(i));
         return cur;
     }
 
+    private static @NotNull VersaPath compiled(@NotNull String path) {
+        return paths.computeIfAbsent(path, VersaPath::of);
+    }
+
     private static void setStatic(@NotNull Field f, @Nullable Object v) {
         try {
             VarHandle h = MethodHandles.privateLookupIn(f.getDeclaringClass(), MethodHandles.lookup())
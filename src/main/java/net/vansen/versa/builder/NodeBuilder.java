@@ -7,6 +7,7 @@ import net.vansen.versa.node.Value;
 import net.vansen.versa.node.entry.Entry;
 import net.vansen.versa.node.entry.EntryType;
 import net.vansen.versa.node.insert.InsertPoint;
+import net.vansen.versa.utils.StringPool;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -65,7 +66,7 @@ public class NodeBuilder {
      * @return this builder
      */
     public @NotNull NodeBuilder name(@NotNull String name) {
-        n.name = name;
+        n.setName(StringPool.shared(name));
         return this;
     }
 
@@ -76,8 +77,7 @@ public class NodeBuilder {
      * @return this builder
      */
     public @NotNull NodeBuilder add(@NotNull Value v) {
-        n.values.put(v.name, v);
-        n.order.add(new Entry(EntryType.VALUE, v));
+        n.addValue(v);
         return this;
     }
 
@@ -98,8 +98,7 @@ public class NodeBuilder {
      * @return this builder
      */
     public @NotNull NodeBuilder child(@NotNull Node c) {
-        n.children.add(c);
-        n.order.add(new Entry(EntryType.BRANCH, c));
+        n.addBranch(c);
         return this;
     }
 
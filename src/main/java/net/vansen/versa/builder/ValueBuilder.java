@@ -5,6 +5,7 @@ import net.vansen.versa.comments.CommentType;
 import net.vansen.versa.node.Node;
 import net.vansen.versa.node.Value;
 import net.vansen.versa.node.value.ValueType;
+import net.vansen.versa.utils.StringPool;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -42,7 +43,7 @@ public class ValueBuilder {
      * @return this builder
      */
     public ValueBuilder name(String n) {
-        val.name = n;
+        val.name = StringPool.shared(n);
         return this;
     }
 
@@ -114,7 +115,7 @@ public class ValueBuilder {
      */
     public ValueBuilder string(String s) {
         val.type = ValueType.STRING;
-        val.sv = s;
+        val.sv = StringPool.shared(s);
         return this;
     }
 
@@ -153,7 +154,7 @@ public class ValueBuilder {
      * @return this builder
      */
     public ValueBuilder comment(CommentType t, String text) {
-        val.comments.add(new Comment(t, text));
+        val.addComment(new Comment(t, text));
         return this;
     }
 
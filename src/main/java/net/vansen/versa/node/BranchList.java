@@ -0,0 +1,145 @@
+package net.vansen.versa.node;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The list behind {@link Node#children}: an {@link ArrayList} that can also find a branch by name in constant time.
+ * <p>
+ * Short lists are searched directly. Once a list is looked up with more than {@value #LINEAR} branches,
+ * a name index is built from it, keeping the first branch of each name like a linear search would.
+ * Appends keep the index up to date, and any other change to the list drops it until the next lookup.
+ * <p>
+ * Rename branches with {@link Node#setName(String)}, which counts the rename in the list holding the node so
+ * that the next lookup rebuilds the index. A name assigned directly to {@link Node#name} is not seen by an
+ * index built before it, until the list changes again.
+ */
+@SuppressWarnings("unused")
+public final class BranchList extends ArrayList<Node> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final int LINEAR = 8;
+
+    private final transient Node owner;
+    private transient volatile Index index;
+    private transient volatile int renames;
+
+    public BranchList() {
+        this(null);
+    }
+
+    /**
+     * @param owner node whose children this list holds; branches added to it get it as their parent
+     */
+    BranchList(Node owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * @return the first branch with the given name, or null if there is none
+     */
+    public @Nullable Node first(@NotNull String name) {
+        int n = size();
+        if (n <= LINEAR) {
+            for (int i = 0; i < n; i++) {
+                Node c = get(i);
+                if (c.name.equals(name)) return c;
+            }
+            return null;
+        }
+
+        Index x = index;
+        if (x == null || x.at != modCount || x.renames != renames) x = reindex();
+        return x.map.get(name);
+    }
+
+    /**
+     * Records that a branch in this list was renamed, so the name index is rebuilt on the next lookup.
+     * A counter rather than just dropping the index, so an index being built at the same time is not kept.
+     */
+    void renamed() {
+        renames++;
+        index = null;
+    }
+
+    @Override
+    public boolean add(Node node) {
+        adopt(node);
+        Index x = index;
+        boolean keep = x != null && x.at == modCount;
+        super.add(node);
+        if (keep) {
+            x.map.putIfAbsent(node.name, node);
+            x.at = modCount;
+        }
+        return true;
+    }
+
+    @Override
+    public Node set(int i, Node node) {
+        adopt(node);
+        index = null;
+        return super.set(i, node);
+    }
+
+    @Override
+    public void add(int i, Node node) {
+        adopt(node);
+        super.add(i, node);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Node> c) {
+        for (Node n : c) adopt(n);
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(int i, Collection<? extends Node> c) {
+        for (Node n : c) adopt(n);
+        return super.addAll(i, c);
+    }
+
+    private void adopt(Node node) {
+        if (owner != null && node != null) node.parent = owner;
+    }
+
+    /**
+     * Builds a new index and publishes it whole, so that threads reading the list at the same time
+     * never see a half-built map. It is stamped with the list's version and rename count from before
+     * the build, so a change made meanwhile leaves it stale instead of wrong.
+     */
+    private Index reindex() {
+        int at = modCount, r = renames;
+        int n = size();
+        Map<String, Node> m = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            Node c = get(i);
+            m.putIfAbsent(c.name, c);
+        }
+        Index x = new Index(m, at, r);
+        index = x;
+        return x;
+    }
+
+    /**
+     * A name index together with the list version and rename count it matches.
+     */
+    private static final class Index {
+        final Map<String, Node> map;
+        final int renames;
+        int at;
+
+        Index(Map<String, Node> map, int at, int renames) {
+            this.map = map;
+            this.at = at;
+            this.renames = renames;
+        }
+    }
+}
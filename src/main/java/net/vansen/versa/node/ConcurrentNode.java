@@ -0,0 +1,345 @@
+package net.vansen.versa.node;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Guards a mutable {@link Node} tree so that many reader threads and a few writer threads can share it.
+ * <p>
+ * Reads first run without taking any lock, under a {@link StampedLock} optimistic stamp. If a write happened
+ * meanwhile, or the read tripped over a half-done write, it is run again under the read lock. Writes take
+ * the write lock. In the common case of no concurrent write, getters such as {@link #getInteger(String, int)}
+ * cost one volatile read and one validation on top of the plain lookup.
+ * <p>
+ * Lookups may still build caches, such as the name index of a large {@link BranchList} or the map of
+ * {@link Node#indexPaths()}, and load lazily parsed branches. These are built aside and published
+ * whole, each tagged with the version of the tree it was built from, so concurrent readers never
+ * see them half-built and a cache built during a write is rebuilt on its next use.
+ *
+ * <pre>{@code
+ * ConcurrentNode cfg = new ConcurrentNode(Versa.parse(path));
+ *
+ * int max = cfg.getInteger("limits.max_players", 100);           // request threads
+ * cfg.write(root -> root.getBranch("limits").setValue("max_players", 200)); // admin thread
+ * }</pre>
+ * <p>
+ * Anything that escapes a read, such as a {@link Value} or a list, is not protected afterward. Read scalars
+ * through the getters, or copy what is needed inside {@link #read(Function)}. For a tree that rarely changes,
+ * {@link FrozenNode} with an atomic reference avoids locking altogether.
+ */
+@SuppressWarnings("unused")
+public final class ConcurrentNode {
+    private final Node root;
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Wraps a tree, loading all of its lazily parsed branches first.
+     * The tree must not be used directly afterward.
+     *
+     * @param root tree to guard
+     */
+    public ConcurrentNode(@NotNull Node root) {
+        loadAll(root);
+        this.root = root;
+    }
+
+    /**
+     * Runs a read-only function on the tree. It may run more than once, so it must not have side effects.
+     *
+     * @param f function reading the tree
+     * @return its result
+     */
+    public <T> T read(@NotNull Function<Node, T> f) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T r = f.apply(root);
+                if (lock.validate(stamp)) return r;
+            } catch (RuntimeException e) {
+                // a torn read fails with things like NullPointerException or ClassCastException; errors still propagate
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return f.apply(root);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs an edit on the tree while holding the write lock.
+     *
+     * @param edit function changing the tree
+     */
+    public void write(@NotNull Consumer<Node> edit) {
+        long stamp = lock.writeLock();
+        try {
+            edit.accept(root);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Sets a value at a dotted path, creating missing branches on the way.
+     *
+     * @param path dotted path ending in the value key
+     * @param v    value, converted like {@link Node#setValue(String, Object)}
+     */
+    public void setValue(@NotNull String path, @Nullable Object v) {
+        VersaPath p = VersaPath.of(path);
+        write(r -> {
+            Node n = r;
+            for (int i = 0; i < p.size() - 1; i++) {
+                Node c = n.getBranch(p.segment(i));
+                if (c == null) {
+                    c = new Node();
+                    c.name = p.segment(i);
+                    n.addBranch(c);
+                }
+                n = c;
+            }
+            n.setValue(p.key(), v);
+        });
+    }
+
+    /**
+     * @see Node#getValue(String)
+     */
+    public @Nullable Value getValue(@NotNull String path) {
+        return read(r -> r.getValue(path));
+    }
+
+    /**
+     * @see Node#hasPath(String)
+     */
+    public boolean hasPath(@NotNull String path) {
+        return read(r -> r.hasPath(path));
+    }
+
+    /**
+     * @see Node#getString(String, String)
+     */
+    public String getString(@NotNull String path, @Nullable String def) {
+        return read(r -> r.getString(path, def));
+    }
+
+    /**
+     * @see Node#getInteger(String, int)
+     */
+    public int getInteger(@NotNull String path, int def) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int r = root.getInteger(path, def);
+                if (lock.validate(stamp)) return r;
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return root.getInteger(path, def);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @see Node#getLong(String, long)
+     */
+    public long getLong(@NotNull String path, long def) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                long r = root.getLong(path, def);
+                if (lock.validate(stamp)) return r;
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return root.getLong(path, def);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @see Node#getDouble(String, double)
+     */
+    public double getDouble(@NotNull String path, double def) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                double r = root.getDouble(path, def);
+                if (lock.validate(stamp)) return r;
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return root.getDouble(path, def);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @see Node#getBool(String, boolean)
+     */
+    public boolean getBool(@NotNull String path, boolean def) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                boolean r = root.getBool(path, def);
+                if (lock.validate(stamp)) return r;
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return root.getBool(path, def);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @see Node#getInteger(VersaPath, int)
+     */
+    public int getInteger(@NotNull VersaPath path, int def) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int r = root.getInteger(path, def);
+                if (lock.validate(stamp)) return r;
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return root.getInteger(path, def);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @see Node#getLong(VersaPath, long)
+     */
+    public long getLong(@NotNull VersaPath path, long def) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                long r = root.getLong(path, def);
+                if (lock.validate(stamp)) return r;
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return root.getLong(path, def);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @see Node#getDouble(VersaPath, double)
+     */
+    public double getDouble(@NotNull VersaPath path, double def) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                double r = root.getDouble(path, def);
+                if (lock.validate(stamp)) return r;
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return root.getDouble(path, def);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @see Node#getBool(VersaPath, boolean)
+     */
+    public boolean getBool(@NotNull VersaPath path, boolean def) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                boolean r = root.getBool(path, def);
+                if (lock.validate(stamp)) return r;
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return root.getBool(path, def);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @see Node#getString(VersaPath, String)
+     */
+    public String getString(@NotNull VersaPath path, @Nullable String def) {
+        return read(r -> r.getString(path, def));
+    }
+
+    /**
+     * @return a frozen copy of the current tree, taken under the read lock
+     */
+    public @NotNull FrozenNode snapshot() {
+        long stamp = lock.readLock();
+        try {
+            return root.freeze();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Renders the tree under the read lock.
+     */
+    @Override
+    public String toString() {
+        long stamp = lock.readLock();
+        try {
+            return root.toString();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static void loadAll(Node n) {
+        for (Node c : n.load().children) loadAll(c);
+    }
+}
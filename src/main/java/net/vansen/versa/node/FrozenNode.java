@@ -0,0 +1,614 @@
+package net.vansen.versa.node;
+
+import net.vansen.versa.comments.Comment;
+import net.vansen.versa.comments.CommentType;
+import net.vansen.versa.node.entry.Entry;
+import net.vansen.versa.node.entry.EntryType;
+import net.vansen.versa.node.insert.InsertPoint;
+import net.vansen.versa.node.value.PackedList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * A read-only snapshot of a {@link Node} tree, created with {@link Node#freeze()}.
+ * <p>
+ * Values and branches are copied into plain arrays with small open-addressing hash tables, so a lookup
+ * is an array probe instead of a {@code LinkedHashMap} or list walk, and string paths are resolved
+ * without splitting them. {@link #values}, {@link #children}, {@link #order} and {@link #inlineComments}
+ * are read-only views, values' lists are immutable, and every mutator throws
+ * {@link UnsupportedOperationException}.
+ * <p>
+ * The public fields inherited from {@link Node} are only there for code that reads them and must not be
+ * assigned. A frozen node never reads them itself: lookups, printing, {@link #offHeap()} and edits all work
+ * from private copies made at construction, so assigning a field changes nothing but what direct readers
+ * of that field see.
+ * <p>
+ * Lookups only read final fields of arrays that never change, so once published a snapshot can be read
+ * from any number of threads without locking. The copied {@link Value} and {@link Comment} objects still
+ * have public fields, which must not be written.
+ * <p>
+ * Edits are made with {@link #with(String, Object)}, {@link #withBranch(String, Node)} and {@link #without(String)},
+ * which return a new root and leave this one untouched. Only the branches on the edited path are copied, and
+ * all other branches are shared, so an edit costs the depth of the path rather than the size of the tree.
+ * Readers holding the old root keep a consistent view:
+ *
+ * <pre>{@code
+ * AtomicReference<FrozenNode> live = new AtomicReference<>(Versa.parse(path).freeze());
+ *
+ * live.updateAndGet(root -> root.with("server.port", 8080)); // writer
+ * int port = live.get().getInteger("server.port", 25565);     // any reader thread
+ * }</pre>
+ */
+@SuppressWarnings("unused")
+public final class FrozenNode extends Node {
+    private static final int[] EMPTY = new int[2];
+    private static final String[] NO_NAMES = {};
+    private static final Value[] NO_VALUES = {};
+    private static final FrozenNode[] NO_KIDS = {};
+    private static final Comment[] NO_COMMENTS = {};
+    private static final Entry[] NO_ENTRIES = {};
+
+    private final String label;
+    private final Map<String, Value> valueView;
+    private final List<Node> kidView;
+    private final List<Comment> inlineView;
+    private final List<Entry> orderView;
+    private final String[] keys;
+    private final Value[] vals;
+    private final int[] valTable;
+    private final String[] kidNames;
+    private final FrozenNode[] kids;
+    private final int[] kidTable;
+
+    private FrozenNode(String name, String[] keys, Value[] vals, String[] kidNames, FrozenNode[] kids,
+                       Comment[] inline, Entry[] order) {
+        this(name, keys, vals, table(keys), kidNames, kids, table(kidNames), inline, order);
+    }
+
+    private FrozenNode(String name, String[] keys, Value[] vals, int[] valTable, String[] kidNames,
+                       FrozenNode[] kids, int[] kidTable, Comment[] inline, Entry[] order) {
+        this(name, new Values(keys, vals, valTable), List.of(kids), List.of(inline), List.of(order),
+                keys, vals, valTable, kidNames, kids, kidTable);
+    }
+
+    private FrozenNode(String name, Map<String, Value> valueView, List<Node> kidView, List<Comment> inlineView,
+                       List<Entry> orderView, String[] keys, Value[] vals, int[] valTable, String[] kidNames,
+                       FrozenNode[] kids, int[] kidTable) {
+        super(valueView, kidView, inlineView, orderView);
+        this.name = name;
+        this.label = name;
+        this.valueView = valueView;
+        this.kidView = kidView;
+        this.inlineView = inlineView;
+        this.orderView = orderView;
+        this.keys = keys;
+        this.vals = vals;
+        this.valTable = valTable;
+        this.kidNames = kidNames;
+        this.kids = kids;
+        this.kidTable = kidTable;
+    }
+
+    /**
+     * Copies {@code n} and everything below it, loading lazy branches on the way.
+     */
+    static @NotNull FrozenNode of(@NotNull Node n) {
+        return of(n, new IdentityHashMap<>());
+    }
+
+    private static FrozenNode of(Node n, IdentityHashMap<Object, Object> seen) {
+        if (n instanceof FrozenNode f) return f;
+        Object done = seen.get(n);
+        if (done != null) return (FrozenNode) done;
+        n.load();
+
+        int vn = n.values.size(), i = 0;
+        String[] keys = new String[vn];
+        Value[] vals = new Value[vn];
+        for (Map.Entry<String, Value> e : n.values.entrySet()) {
+            keys[i] = e.getKey();
+            vals[i++] = copy(e.getValue(), seen);
+        }
+
+        int cn = n.children.size();
+        String[] kidNames = new String[cn];
+        FrozenNode[] kids = new FrozenNode[cn];
+        for (i = 0; i < cn; i++) {
+            kids[i] = of(n.children.get(i), seen);
+            kidNames[i] = kids[i].label;
+        }
+
+        Comment[] inline = new Comment[n.inlineComments.size()];
+        for (i = 0; i < inline.length; i++) inline[i] = copy(n.inlineComments.get(i));
+
+        Entry[] order = new Entry[n.order.size()];
+        for (i = 0; i < order.length; i++) {
+            Entry e = n.order.get(i);
+            Object o = switch (e.t) {
+                case VALUE -> copy((Value) e.o, seen);
+                case BRANCH -> of((Node) e.o, seen);
+                case COMMENT -> e.o instanceof Comment c ? copy(c) : e.o;
+                case EMPTY_LINE -> e.o;
+            };
+            order[i] = new Entry(e.t, o);
+        }
+
+        FrozenNode f = new FrozenNode(n.name, keys, vals, kidNames, kids, inline, order);
+        seen.put(n, f);
+        return f;
+    }
+
+    private static Value copy(Value v, IdentityHashMap<Object, Object> seen) {
+        Object done = seen.get(v);
+        if (done != null) return (Value) done;
+
+        Value c = new Value();
+        c.name = v.name;
+        c.type = v.type;
+        c.iv = v.iv;
+        c.dv = v.dv;
+        c.sv = v.sv;
+        c.assign = v.assign;
+        if (v.list instanceof PackedList p && p.kind() != null) c.list = p.readOnly();
+        else if (v.list != null) {
+            Value[] l = new Value[v.list.size()];
+            for (int i = 0; i < l.length; i++) l[i] = copy(v.list.get(i), seen);
+            c.list = List.of(l);
+        }
+        if (v.branchList != null) {
+            Node[] l = new Node[v.branchList.size()];
+            for (int i = 0; i < l.length; i++) l[i] = of(v.branchList.get(i), seen);
+            c.branchList = List.of(l);
+        }
+        Comment[] cs = new Comment[v.hasComments() ? v.comments.size() : 0];
+        for (int i = 0; i < cs.length; i++) cs[i] = copy(v.comments.get(i));
+        c.comments = List.of(cs);
+        seen.put(v, c);
+        return c;
+    }
+
+    private static Comment copy(Comment c) {
+        return new Comment(c.type, c.text, c.slash);
+    }
+
+    /**
+     * @return this node, which is already frozen
+     */
+    @Override
+    public @NotNull FrozenNode freeze() {
+        return this;
+    }
+
+    @Override
+    String label() {
+        return label;
+    }
+
+    @Override
+    Map<String, Value> valueMap() {
+        return valueView;
+    }
+
+    @Override
+    List<Node> branches() {
+        return kidView;
+    }
+
+    @Override
+    List<Comment> inline() {
+        return inlineView;
+    }
+
+    @Override
+    List<Entry> entries() {
+        return orderView;
+    }
+
+    @Override
+    public Node getBranch(@NotNull String n) {
+        int i = find(kidNames, kidTable, n, 0, n.length(), n.hashCode());
+        return i < 0 ? null : kids[i];
+    }
+
+    /**
+     * Resolves a dotted path segment by segment against the hash tables, without splitting it.
+     */
+    @Override
+    public Value getValue(@NotNull String path) {
+        if (path.endsWith(".")) return super.getValue(path);
+        FrozenNode n = this;
+        int from = 0;
+        while (true) {
+            int dot = path.indexOf('.', from);
+            int to = dot < 0 ? path.length() : dot;
+            int h = 0;
+            for (int i = from; i < to; i++) h = 31 * h + path.charAt(i);
+
+            if (dot < 0) {
+                int i = find(n.keys, n.valTable, path, from, to - from, h);
+                return i < 0 ? null : n.vals[i];
+            }
+            int i = find(n.kidNames, n.kidTable, path, from, to - from, h);
+            if (i < 0) return null;
+            n = n.kids[i];
+            from = dot + 1;
+        }
+    }
+
+    @Override
+    public Value getValue(@NotNull VersaPath path) {
+        String[] parts = path.parts;
+        FrozenNode n = this;
+        int last = parts.length - 1;
+        for (int p = 0; p < last; p++) {
+            String s = parts[p];
+            int i = find(n.kidNames, n.kidTable, s, 0, s.length(), s.hashCode());
+            if (i < 0) return null;
+            n = n.kids[i];
+        }
+        String k = parts[last];
+        int i = find(n.keys, n.valTable, k, 0, k.length(), k.hashCode());
+        return i < 0 ? null : n.vals[i];
+    }
+
+    /**
+     * Returns a new tree with the value at {@code path} set, converting {@code v} like
+     * {@link Node#setValue(String, Object)}. Missing branches along the path are created.
+     * A value that already exists keeps its place, assignment style and comments.
+     *
+     * @param path dotted path ending in the value key
+     * @param v    new value
+     * @return the new root, sharing every branch off the path with this one
+     */
+    public @NotNull FrozenNode with(@NotNull String path, @Nullable Object v) {
+        return with(VersaPath.of(path), v);
+    }
+
+    /**
+     * @see #with(String, Object)
+     */
+    public @NotNull FrozenNode with(@NotNull VersaPath path, @Nullable Object v) {
+        Value val = Node.value(path.key(), v);
+        val.comments = List.of();
+        return edit(path.parts, 0, true, n -> n.put(val));
+    }
+
+    /**
+     * Returns a new tree with a frozen copy of {@code branch} at {@code path}, replacing the first branch
+     * of that name or appending it. The copy is named after the last path segment.
+     *
+     * @param path   dotted path ending in the branch name
+     * @param branch branch to place there
+     * @return the new root
+     */
+    public @NotNull FrozenNode withBranch(@NotNull String path, @NotNull Node branch) {
+        String[] parts = VersaPath.of(path).parts;
+        String key = parts[parts.length - 1];
+        FrozenNode b = of(branch);
+        FrozenNode named = b.label.equals(key) ? b : new FrozenNode(key, b.keys, b.vals, b.valTable, b.kidNames, b.kids,
+                b.kidTable, b.inlineView.toArray(NO_COMMENTS), b.orderView.toArray(NO_ENTRIES));
+        return edit(parts, 0, true, n -> {
+            int i = find(n.kidNames, n.kidTable, key, 0, key.length(), key.hashCode());
+            return n.putKid(i < 0 ? null : n.kids[i], named);
+        });
+    }
+
+    /**
+     * Returns a new tree without the value at {@code path}, or, if there is no such value, without the
+     * first branch of that name.
+     *
+     * @param path dotted path of the value or branch
+     * @return the new root, or this one if nothing is at the path
+     */
+    public @NotNull FrozenNode without(@NotNull String path) {
+        String[] parts = VersaPath.of(path).parts;
+        String key = parts[parts.length - 1];
+        return edit(parts, 0, false, n -> n.remove(key));
+    }
+
+    /**
+     * Applies {@code op} to the branch holding the last path segment, then copies each branch on the way back up.
+     */
+    private FrozenNode edit(String[] parts, int i, boolean create, UnaryOperator<FrozenNode> op) {
+        if (i == parts.length - 1) return op.apply(this);
+        String s = parts[i];
+        int k = find(kidNames, kidTable, s, 0, s.length(), s.hashCode());
+        if (k < 0 && !create) return this;
+
+        FrozenNode old = k < 0 ? null : kids[k];
+        FrozenNode next = (old != null ? old : empty(s)).edit(parts, i + 1, create, op);
+        return next == old ? this : putKid(old, next);
+    }
+
+    private FrozenNode put(Value v) {
+        int i = find(keys, valTable, v.name, 0, v.name.length(), v.name.hashCode());
+        if (i < 0) {
+            int n = keys.length;
+            String[] k = Arrays.copyOf(keys, n + 1);
+            Value[] vs = Arrays.copyOf(vals, n + 1);
+            k[n] = v.name;
+            vs[n] = v;
+            return copy(k, vs, table(k), kidNames, kids, kidTable, append(new Entry(EntryType.VALUE, v)));
+        }
+
+        Value old = vals[i];
+        v.assign = old.assign;
+        v.comments = old.comments;
+        Value[] vs = vals.clone();
+        vs[i] = v;
+        return copy(keys, vs, valTable, kidNames, kids, kidTable, replace(old, new Entry(EntryType.VALUE, v)));
+    }
+
+    private FrozenNode putKid(@Nullable FrozenNode old, FrozenNode kid) {
+        if (old == null) {
+            int n = kids.length;
+            String[] names = Arrays.copyOf(kidNames, n + 1);
+            FrozenNode[] ks = Arrays.copyOf(kids, n + 1);
+            names[n] = kid.label;
+            ks[n] = kid;
+            return copy(keys, vals, valTable, names, ks, table(names), append(new Entry(EntryType.BRANCH, kid)));
+        }
+
+        FrozenNode[] ks = kids.clone();
+        for (int i = 0; i < ks.length; i++) if (ks[i] == old) ks[i] = kid;
+        return copy(keys, vals, valTable, kidNames, ks, kidTable, replace(old, new Entry(EntryType.BRANCH, kid)));
+    }
+
+    private FrozenNode remove(String key) {
+        int i = find(keys, valTable, key, 0, key.length(), key.hashCode());
+        if (i >= 0) {
+            Value old = vals[i];
+            String[] k = drop(keys, i, NO_NAMES);
+            return copy(k, drop(vals, i, NO_VALUES), table(k), kidNames, kids, kidTable, dropEntry(old));
+        }
+
+        i = find(kidNames, kidTable, key, 0, key.length(), key.hashCode());
+        if (i < 0) return this;
+        FrozenNode old = kids[i];
+        String[] names = drop(kidNames, i, NO_NAMES);
+        return copy(keys, vals, valTable, names, drop(kids, i, NO_KIDS), table(names), dropEntry(old));
+    }
+
+    private FrozenNode copy(String[] keys, Value[] vals, int[] valTable, String[] kidNames, FrozenNode[] kids,
+                            int[] kidTable, Entry[] order) {
+        return new FrozenNode(label, keys, vals, valTable, kidNames, kids, kidTable,
+                inlineView.toArray(NO_COMMENTS), order);
+    }
+
+    private static FrozenNode empty(String name) {
+        return new FrozenNode(name, NO_NAMES, NO_VALUES, NO_NAMES, NO_KIDS, NO_COMMENTS, NO_ENTRIES);
+    }
+
+    private Entry[] append(Entry e) {
+        Entry[] o = orderView.toArray(new Entry[orderView.size() + 1]);
+        o[o.length - 1] = e;
+        return o;
+    }
+
+    /**
+     * @return the order with the entry of {@code old} replaced by {@code e}, or {@code e} appended if there was none
+     */
+    private Entry[] replace(Object old, Entry e) {
+        Entry[] o = orderView.toArray(NO_ENTRIES);
+        for (int i = 0; i < o.length; i++)
+            if (o[i].o == old) {
+                o[i] = e;
+                return o;
+            }
+        return append(e);
+    }
+
+    private Entry[] dropEntry(Object old) {
+        Entry[] o = orderView.toArray(NO_ENTRIES);
+        for (int i = 0; i < o.length; i++) if (o[i].o == old) return drop(o, i, NO_ENTRIES);
+        return o;
+    }
+
+    private static <T> T[] drop(T[] a, int i, T[] none) {
+        if (a.length == 1) return none;
+        T[] r = Arrays.copyOf(a, a.length - 1);
+        System.arraycopy(a, i + 1, r, i, a.length - i - 1);
+        return r;
+    }
+
+    @Override
+    public @NotNull Node indexPaths() {
+        return this;
+    }
+
+    @Override
+    public @NotNull Node setComment(@NotNull CommentType t, @Nullable String txt) {
+        throw frozen();
+    }
+
+    @Override
+    public @NotNull Node setValue(@NotNull String name, @Nullable Object v) {
+        throw frozen();
+    }
+
+    @Override
+    public @NotNull Node addValue(@NotNull Value v) {
+        throw frozen();
+    }
+
+    @Override
+    public @NotNull Node setName(@NotNull String name) {
+        throw frozen();
+    }
+
+    @Override
+    public @NotNull Node rebuildFromOrder() {
+        throw frozen();
+    }
+
+    @Override
+    public @NotNull Node setValueComment(@NotNull String key, @Nullable String txt) {
+        throw frozen();
+    }
+
+    @Override
+    public @NotNull Node addLineComment(@Nullable String text) {
+        throw frozen();
+    }
+
+    @Override
+    public @NotNull Node emptyLine() {
+        throw frozen();
+    }
+
+    @Override
+    public Node addStartComment(@NotNull String text, boolean slash) {
+        throw frozen();
+    }
+
+    @Override
+    public Node addEndComment(@NotNull String text, boolean slash) {
+        throw frozen();
+    }
+
+    @Override
+    public Node addStartCommentTo(@NotNull String branch, @NotNull String text, boolean slash) {
+        throw frozen();
+    }
+
+    @Override
+    public Node addEndCommentTo(@NotNull String branch, @NotNull String text, boolean slash) {
+        throw frozen();
+    }
+
+    @Override
+    public Node addBranch(@NotNull Node child) {
+        throw frozen();
+    }
+
+    @Override
+    public @NotNull InsertPoint before(@NotNull String key) {
+        throw frozen();
+    }
+
+    @Override
+    public @NotNull InsertPoint after(@NotNull String key) {
+        throw frozen();
+    }
+
+    @Override
+    public @NotNull InsertPoint beforeBranch(@NotNull String name) {
+        throw frozen();
+    }
+
+    @Override
+    public @NotNull InsertPoint afterBranch(@NotNull String name) {
+        throw frozen();
+    }
+
+    private UnsupportedOperationException frozen() {
+        return new UnsupportedOperationException("Node '" + label + "' is frozen");
+    }
+
+    /**
+     * Builds a table of {@code index + 1} per name, keeping the first of duplicate names.
+     */
+    private static int[] table(String[] names) {
+        int n = names.length;
+        if (n == 0) return EMPTY;
+        int[] t = new int[Integer.highestOneBit(n) << 2];
+        int m = t.length - 1;
+        outer:
+        for (int i = 0; i < n; i++) {
+            int h = spread(names[i].hashCode()) & m;
+            for (int e; (e = t[h]) != 0; h = (h + 1) & m)
+                if (names[e - 1].equals(names[i])) continue outer;
+            t[h] = i + 1;
+        }
+        return t;
+    }
+
+    /**
+     * @return index of the name equal to {@code s[off, off + len)}, whose hash is {@code hash}, or -1
+     */
+    private static int find(String[] names, int[] t, String s, int off, int len, int hash) {
+        int m = t.length - 1;
+        for (int h = spread(hash) & m, e; (e = t[h]) != 0; h = (h + 1) & m) {
+            String k = names[e - 1];
+            if (k.length() == len && s.regionMatches(off, k, 0, len)) return e - 1;
+        }
+        return -1;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Read-only map view over a frozen node's key and value arrays, in source order.
+     */
+    private static final class Values extends AbstractMap<String, Value> {
+        private final String[] keys;
+        private final Value[] vals;
+        private final int[] table;
+
+        Values(String[] keys, Value[] vals, int[] table) {
+            this.keys = keys;
+            this.vals = vals;
+            this.table = table;
+        }
+
+        @Override
+        public Value get(Object key) {
+            if (!(key instanceof String s)) return null;
+            int i = find(keys, table, s, 0, s.length(), s.hashCode());
+            return i < 0 ? null : vals[i];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public @NotNull Set<Map.Entry<String, Value>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public @NotNull Iterator<Map.Entry<String, Value>> iterator() {
+                    return new Iterator<>() {
+                        private int i;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < keys.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Value> next() {
+                            if (i >= keys.length) throw new NoSuchElementException();
+                            Map.Entry<String, Value> e = new SimpleImmutableEntry<>(keys[i], vals[i]);
+                            i++;
+                            return e;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+    }
+}
@@ -16,9 +16,11 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * <h2>Node - A configuration section/block with values, child nodes and layout awareness</h2>
@@ -145,19 +147,21 @@ import java.util.Map;
 @SuppressWarnings({"unused", "UnusedReturnValue"})
 public class Node {
     /**
-     * Name of this branch. May be empty.
+     * Name of this branch. May be empty. Rename a branch with {@link #setName(String)}, so that the name index
+     * of a large parent section sees the change.
      */
     public String name = "";
 
     /**
      * Map of values in this branch, keyed by name.
      */
-    public Map<String, Value> values = new LinkedHashMap<>();
+    public Map<String, Value> values;
 
     /**
      * Child branches directly under this node.
+     * A {@link BranchList} by default, so {@link #getBranch(String)} does not scan large sections.
      */
-    public List<Node> children = new ArrayList<>();
+    public List<Node> children;
 
     /**
      * Stores comments that are attached to this node rather than being standalone lines.
@@ -176,12 +180,171 @@ public class Node {
      * • Standalone comments belong in {@link #order} as ENTRY.COMMENT instead.<br>
      * • This list does not insert new lines, it attaches to existing elements.
      */
-    public List<Comment> inlineComments = new ArrayList<>();
+    public List<Comment> inlineComments;
 
     /**
      * Ordered view of this node's contents for printing.
      */
-    public List<Entry> order = new ArrayList<>();
+    public List<Entry> order;
+
+    /**
+     * Branch this node was last added to through a {@link BranchList}, or null.
+     * Only used to tell path indexes above this node about changes, see {@link #modified()}.
+     */
+    Node parent;
+
+    private volatile Supplier<Node> body;
+    private PathIndex paths;
+    private int revision;
+
+    /**
+     * Creates an empty, unnamed node.
+     */
+    public Node() {
+        this(new LinkedHashMap<>(), null, new ArrayList<>(), new ArrayList<>());
+        children = new BranchList(this);
+    }
+
+    /**
+     * Creates a node over the given collections, used by {@link FrozenNode} to install its read-only views.
+     */
+    Node(Map<String, Value> values, List<Node> children, List<Comment> inlineComments, List<Entry> order) {
+        this.values = values;
+        this.children = children;
+        this.inlineComments = inlineComments;
+        this.order = order;
+    }
+
+    /**
+     * Creates a branch whose contents are produced on first access, see {@link #load()}.
+     *
+     * @param name branch name
+     * @param body supplies a node whose values, children and order become this node's contents
+     */
+    public Node(@NotNull String name, @NotNull Supplier<Node> body) {
+        this();
+        this.name = name;
+        this.body = body;
+    }
+
+    /**
+     * @return this node's name as its own reads see it; a {@link FrozenNode} answers from its private copy
+     */
+    String label() {
+        return name;
+    }
+
+    /**
+     * @return the values as this node's own reads see them, see {@link #label()}
+     */
+    Map<String, Value> valueMap() {
+        return values;
+    }
+
+    /**
+     * @return the child branches as this node's own reads see them, see {@link #label()}
+     */
+    List<Node> branches() {
+        return children;
+    }
+
+    /**
+     * @return the inline comments as this node's own reads see them, see {@link #label()}
+     */
+    List<Comment> inline() {
+        return inlineComments;
+    }
+
+    /**
+     * @return the order as this node's own reads see it, see {@link #label()}
+     */
+    List<Entry> entries() {
+        return order;
+    }
+
+    /**
+     * Materializes the contents of a lazily parsed branch. Every method of this class does this
+     * on its own, so it only needs to be called before reading {@link #values}, {@link #children}
+     * or {@link #order} directly. Does nothing for regular nodes.
+     *
+     * @return this node
+     */
+    public @NotNull Node load() {
+        if (body == null) return this;
+        synchronized (this) {
+            Supplier<Node> b = body;
+            if (b == null) return this;
+            Node n = b.get();
+            values.putAll(n.values);
+            children.addAll(n.children);
+            order.addAll(n.order);
+            body = null;
+        }
+        return this;
+    }
+
+    /**
+     * Returns a deeply copied, read-only snapshot of this node and everything below it, stored in compact
+     * arrays with precomputed hash tables. Later changes to this node do not affect the snapshot.
+     *
+     * @return the frozen copy
+     * @see FrozenNode
+     */
+    public @NotNull FrozenNode freeze() {
+        return FrozenNode.of(this);
+    }
+
+    /**
+     * Returns a read-only copy of this node and everything below it, encoded into a buffer outside the
+     * Java heap, for very large trees that should not weigh on the garbage collector.
+     *
+     * @return the off-heap copy
+     * @see OffHeapTree
+     */
+    public @NotNull OffHeapTree offHeap() {
+        return OffHeapTree.of(this);
+    }
+
+    /**
+     * Makes path lookups on this node, usually the root, use a flat map from full dotted path to value,
+     * so {@code a.b.c.key} is one hash lookup instead of a walk through each branch.
+     * <p>
+     * The map is built on the first lookup, loading any lazily parsed branches, and rebuilt on the
+     * lookup after this node or a branch below it changes through the methods of this class, see
+     * {@link #revision()}. After editing {@link #values} or {@link #children} directly, call this
+     * method again to drop the map.
+     *
+     * @return this node
+     */
+    public @NotNull Node indexPaths() {
+        if (paths == null) paths = new PathIndex();
+        else paths.clear();
+        return this;
+    }
+
+    /**
+     * Counts changes made to this node and the branches below it through the methods of this class
+     * and the builders. Edits made directly to the public fields are not counted.
+     *
+     * @return a number that changes whenever this part of the tree does
+     */
+    public int revision() {
+        return revision;
+    }
+
+    /**
+     * Records a change to this node in its own revision and in those of the branches above it.
+     */
+    void modified() {
+        for (Node n = this; n != null; n = n.parent) n.revision++;
+    }
+
+    /**
+     * @return true if this branch was parsed lazily and has not been materialized yet
+     */
+    public boolean isLoaded() {
+        return body == null;
+    }
 
     /**
      * Returns the first child branch with the given name.
@@ -189,6 +352,8 @@ public class Node {
      * @return The first child branch, or {@code null} if not found
      */
     public Node getBranch(@NotNull String n) {
+        load();
+        if (children instanceof BranchList b) return b.first(n);
         for (Node c : children) if (c.name.equals(n)) return c;
         return null;
     }
@@ -215,9 +380,10 @@ public class Node {
      * @return the first matching {@code Value}, or {@code null} if not found anywhere
      */
     public Value getValueFromAnywhere(@NotNull String key) {
-        Value v = values.get(key);
+        load();
+        Value v = valueMap().get(key);
         if (v != null) return v;
-        for (Node c : children) {
+        for (Node c : branches()) {
             v = c.getValueFromAnywhere(key);
             if (v != null) return v;
         }
@@ -255,16 +421,14 @@ public class Node {
      * @return the {@code Value} if path resolves, otherwise {@code null}
      */
     public Value getValue(@NotNull String path) {
+        PathIndex px = paths;
+        if (px != null && !path.endsWith(".")) return px.get(this, path);
         String[] parts = path.split("\\.");
         Node n = this;
         for (int i = 0; i < parts.length; i++) {
-            if (i == parts.length - 1) return n.values.get(parts[i]);
-            Node next = null;
-            for (Node c : n.children)
-                if (c.name.equals(parts[i])) {
-                    next = c;
-                    break;
-                }
+            n.load();
+            if (i == parts.length - 1) return n.valueMap().get(parts[i]);
+            Node next = n.getBranch(parts[i]);
             if (next == null) return null;
             n = next;
         }
@@ -282,6 +446,34 @@ public class Node {
         return getValue(path) != null;
     }
 
+    /**
+     * Resolves a value using a precompiled path, like {@link #getValue(String)} but without
+     * splitting the path again.
+     *
+     * @param path compiled lookup path
+     * @return the {@code Value} if path resolves, otherwise {@code null}
+     */
+    public Value getValue(@NotNull VersaPath path) {
+        PathIndex px = paths;
+        if (px != null && !path.toString().endsWith(".")) return px.get(this, path.toString());
+        String[] parts = path.parts;
+        Node n = this;
+        int last = parts.length - 1;
+        for (int i = 0; i < last; i++) {
+            n = n.getBranch(parts[i]);
+            if (n == null) return null;
+        }
+        return n.load().valueMap().get(parts[last]);
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return true if a value exists at that path
+     */
+    public boolean hasPath(@NotNull VersaPath path) {
+        return getValue(path) != null;
+    }
+
     /**
      * Checks if any value with the given key exists anywhere in this node,
      * including nested children (searches recursively).
@@ -377,11 +569,9 @@ public class Node {
      * @return list of strings or null
      */
     public @Nullable List<String> getStringList(@NotNull String path) {
-        List<Value> l = getList(path);
-        if (l == null) return null;
-        List<String> out = new ArrayList<>();
-        for (Value v : l) out.add(v.asString());
-        return out;
+        Value v = getValue(path);
+        String[] a = v == null ? null : v.asStringArray();
+        return a == null ? null : new ArrayList<>(Arrays.asList(a));
     }
 
     /**
@@ -391,13 +581,70 @@ public class Node {
      * @return integer list or null
      */
     public @Nullable List<Integer> getIntegerList(@NotNull String path) {
-        List<Value> l = getList(path);
-        if (l == null) return null;
-        List<Integer> out = new ArrayList<>();
-        for (Value v : l) out.add(v.asInt());
+        Value v = getValue(path);
+        int[] a = v == null ? null : v.asIntArray();
+        if (a == null) return null;
+        List<Integer> out = new ArrayList<>(a.length);
+        for (int x : a) out.add(x);
         return out;
     }
 
+    /**
+     * Gets a list value as an {@code int[]}. Integer lists read by the parser are stored packed,
+     * so this copies one array instead of converting each element.
+     *
+     * @param path path lookup
+     * @return int array or null
+     */
+    public int @Nullable [] getIntArray(@NotNull String path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asIntArray();
+    }
+
+    /**
+     * Gets a list value as a {@code long[]}.
+     *
+     * @param path path lookup
+     * @return long array or null
+     */
+    public long @Nullable [] getLongArray(@NotNull String path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asLongArray();
+    }
+
+    /**
+     * Gets a list value as a {@code double[]}, widening integer elements.
+     *
+     * @param path path lookup
+     * @return double array or null
+     */
+    public double @Nullable [] getDoubleArray(@NotNull String path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asDoubleArray();
+    }
+
+    /**
+     * Gets a list value as a {@code boolean[]}.
+     *
+     * @param path path lookup
+     * @return boolean array or null
+     */
+    public boolean @Nullable [] getBoolArray(@NotNull String path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asBoolArray();
+    }
+
+    /**
+     * Gets a list value as a {@code String[]}.
+     *
+     * @param path path lookup
+     * @return string array or null
+     */
+    public String @Nullable [] getStringArray(@NotNull String path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asStringArray();
+    }
+
     /**
      * Returns a string at the given path or a fallback if missing.
      *
@@ -490,11 +737,8 @@ public class Node {
      * @return list of strings or fallback
      */
     public @NotNull List<String> getStringList(@NotNull String path, @NotNull List<String> def) {
-        List<Value> l = getList(path);
-        if (l == null) return def;
-        List<String> out = new ArrayList<>();
-        for (Value v : l) out.add(v.asString());
-        return out;
+        List<String> l = getStringList(path);
+        return l == null ? def : l;
     }
 
     /**
@@ -505,13 +749,231 @@ public class Node {
      * @return list of integers or fallback
      */
     public @NotNull List<Integer> getIntegerList(@NotNull String path, @NotNull List<Integer> def) {
-        List<Value> l = getList(path);
-        if (l == null) return def;
-        List<Integer> out = new ArrayList<>();
-        for (Value v : l) out.add(v.asInt());
+        List<Integer> l = getIntegerList(path);
+        return l == null ? def : l;
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return string or null
+     */
+    public @Nullable String getString(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asString();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return integer or null
+     */
+    public @Nullable Integer getInteger(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asInt();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return long or null
+     */
+    public @Nullable Long getLong(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asLong();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return double or null
+     */
+    public @Nullable Double getDouble(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asDouble();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return boolean or null
+     */
+    public @Nullable Boolean getBool(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asBool();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return raw list or null
+     */
+    public @Nullable List<Value> getList(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asList();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return list of nodes or null
+     */
+    public @Nullable List<Node> getBranchList(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asBranchList();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return list of strings or null
+     */
+    public @Nullable List<String> getStringList(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        String[] a = v == null ? null : v.asStringArray();
+        return a == null ? null : new ArrayList<>(Arrays.asList(a));
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return integer list or null
+     */
+    public @Nullable List<Integer> getIntegerList(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        int[] a = v == null ? null : v.asIntArray();
+        if (a == null) return null;
+        List<Integer> out = new ArrayList<>(a.length);
+        for (int x : a) out.add(x);
         return out;
     }
 
+    /**
+     * @param path compiled lookup path
+     * @return int array or null
+     */
+    public int @Nullable [] getIntArray(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asIntArray();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return long array or null
+     */
+    public long @Nullable [] getLongArray(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asLongArray();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return double array or null
+     */
+    public double @Nullable [] getDoubleArray(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asDoubleArray();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return boolean array or null
+     */
+    public boolean @Nullable [] getBoolArray(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asBoolArray();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @return string array or null
+     */
+    public String @Nullable [] getStringArray(@NotNull VersaPath path) {
+        Value v = getValue(path);
+        return v == null ? null : v.asStringArray();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @param def  returned if no value exists
+     * @return string value or {@code def}
+     */
+    public String getString(@NotNull VersaPath path, @Nullable String def) {
+        Value v = getValue(path);
+        return v == null ? def : v.asString();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @param def  fallback if missing
+     * @return integer value or {@code def}
+     */
+    public int getInteger(@NotNull VersaPath path, int def) {
+        Value v = getValue(path);
+        return v == null ? def : v.asInt();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @param def  returned if not present
+     * @return resolved long value or {@code def}
+     */
+    public long getLong(@NotNull VersaPath path, long def) {
+        Value v = getValue(path);
+        return v == null ? def : v.asLong();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @param def  default value if missing
+     * @return double value or {@code def}
+     */
+    public double getDouble(@NotNull VersaPath path, double def) {
+        Value v = getValue(path);
+        return v == null ? def : v.asDouble();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @param def  default if missing
+     * @return boolean or {@code def}
+     */
+    public boolean getBool(@NotNull VersaPath path, boolean def) {
+        Value v = getValue(path);
+        return v == null ? def : v.asBool();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @param def  used if not found
+     * @return {@code List<Value>} or default
+     */
+    public @NotNull List<Value> getList(@NotNull VersaPath path, @NotNull List<Value> def) {
+        Value v = getValue(path);
+        return v == null ? def : v.asList();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @param def  returned if missing
+     * @return list of {@link Node} or default
+     */
+    public @NotNull List<Node> getBranchList(@NotNull VersaPath path, @NotNull List<Node> def) {
+        Value v = getValue(path);
+        return v == null ? def : v.asBranchList();
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @param def  used if missing
+     * @return list of strings or fallback
+     */
+    public @NotNull List<String> getStringList(@NotNull VersaPath path, @NotNull List<String> def) {
+        List<String> l = getStringList(path);
+        return l == null ? def : l;
+    }
+
+    /**
+     * @param path compiled lookup path
+     * @param def  returned if missing
+     * @return list of integers or fallback
+     */
+    public @NotNull List<Integer> getIntegerList(@NotNull VersaPath path, @NotNull List<Integer> def) {
+        List<Integer> l = getIntegerList(path);
+        return l == null ? def : l;
+    }
+
     /**
      * Replaces existing comment type for this node and applies new text.
      *
@@ -534,6 +996,58 @@ public class Node {
      * @return node for chaining
      */
     public @NotNull Node setValue(@NotNull String name, @Nullable Object v) {
+        return addValue(value(name, v));
+    }
+
+    /**
+     * Adds a completed value under its own name and preserves ordering.
+     *
+     * @param v value to add
+     * @return node for chaining
+     */
+    public @NotNull Node addValue(@NotNull Value v) {
+        load();
+        values.put(v.name, v);
+        order.add(new Entry(EntryType.VALUE, v));
+        modified();
+        return this;
+    }
+
+    /**
+     * Renames this branch.
+     *
+     * @param name new name
+     * @return node for chaining
+     */
+    public @NotNull Node setName(@NotNull String name) {
+        this.name = name;
+        if (parent != null && parent.children instanceof BranchList b) b.renamed();
+        modified();
+        return this;
+    }
+
+    /**
+     * Rebuilds {@link #values} and {@link #children} from {@link #order}, after entries were
+     * added to or removed from the order directly.
+     *
+     * @return node for chaining
+     */
+    public @NotNull Node rebuildFromOrder() {
+        load();
+        values.clear();
+        children.clear();
+        for (Entry e : order) {
+            if (e.t == EntryType.VALUE) values.put(((Value) e.o).name, (Value) e.o);
+            else if (e.t == EntryType.BRANCH) children.add((Node) e.o);
+        }
+        modified();
+        return this;
+    }
+
+    /**
+     * Wraps a Java value the way {@link #setValue(String, Object)} does.
+     */
+    static @NotNull Value value(@NotNull String name, @Nullable Object v) {
         Value val = new Value();
         val.name = name;
         if (v instanceof Boolean b) {
@@ -555,9 +1069,7 @@ public class Node {
             val.type = ValueType.STRING;
             val.sv = s;
         }
-        values.put(name, val);
-        order.add(new Entry(EntryType.VALUE, val));
-        return this;
+        return val;
     }
 
     /**
@@ -568,10 +1080,11 @@ public class Node {
      * @return same node
      */
     public @NotNull Node setValueComment(@NotNull String key, @Nullable String txt) {
+        load();
         Value v = values.get(key);
         if (v != null) {
-            v.comments.removeIf(c -> c.type == CommentType.INLINE_VALUE);
-            v.comments.add(new Comment(CommentType.INLINE_VALUE, txt));
+            if (v.hasComments()) v.comments.removeIf(c -> c.type == CommentType.INLINE_VALUE);
+            v.addComment(new Comment(CommentType.INLINE_VALUE, txt));
         }
         return this;
     }
@@ -583,6 +1096,7 @@ public class Node {
      * @return node for chaining
      */
     public @NotNull Node addLineComment(@Nullable String text) {
+        load();
         order.add(new Entry(EntryType.COMMENT, new Comment(CommentType.COMMENT_LINE, text)));
         return this;
     }
@@ -593,6 +1107,7 @@ public class Node {
      * @return node for chaining
      */
     public @NotNull Node emptyLine() {
+        load();
         order.add(new Entry(EntryType.EMPTY_LINE, ""));
         return this;
     }
@@ -652,12 +1167,8 @@ public class Node {
      * @return this node for chaining
      */
     public Node addStartCommentTo(@NotNull String branch, @NotNull String text, boolean slash) {
-        for (Node n : children) {
-            if (n.name.equals(branch)) {
-                n.inlineComments.add(new Comment(CommentType.START_BRANCH, text, slash));
-                return this;
-            }
-        }
+        Node n = getBranch(branch);
+        if (n != null) n.inlineComments.add(new Comment(CommentType.START_BRANCH, text, slash));
         return this;
     }
 
@@ -671,12 +1182,8 @@ public class Node {
      * @return this node for chaining
      */
     public Node addEndCommentTo(@NotNull String branch, @NotNull String text, boolean slash) {
-        for (Node n : children) {
-            if (n.name.equals(branch)) {
-                n.inlineComments.add(new Comment(CommentType.END_BRANCH, text, slash));
-                return this;
-            }
-        }
+        Node n = getBranch(branch);
+        if (n != null) n.inlineComments.add(new Comment(CommentType.END_BRANCH, text, slash));
         return this;
     }
 
@@ -687,8 +1194,10 @@ public class Node {
      * @return this node
      */
     public Node addBranch(@NotNull Node child) {
+        load();
         children.add(child);
         order.add(new Entry(EntryType.BRANCH, child));
+        modified();
         return this;
     }
 
@@ -700,6 +1209,7 @@ public class Node {
      * @return insertion point used for comment placement, value insertion, etc.
      */
     public @NotNull InsertPoint before(@NotNull String key) {
+        load();
         for (int i = 0; i < order.size(); i++) {
             Entry e = order.get(i);
             if (e.t == EntryType.VALUE && ((Value) e.o).name.equals(key))
@@ -716,6 +1226,7 @@ public class Node {
      * @return insertion point
      */
     public @NotNull InsertPoint after(@NotNull String key) {
+        load();
         for (int i = 0; i < order.size(); i++) {
             Entry e = order.get(i);
             if (e.t == EntryType.VALUE && ((Value) e.o).name.equals(key))
@@ -732,6 +1243,7 @@ public class Node {
      * @return insertion point
      */
     public @NotNull InsertPoint beforeBranch(@NotNull String name) {
+        load();
         for (int i = 0; i < order.size(); i++) {
             Entry e = order.get(i);
             if (e.t == EntryType.BRANCH && ((Node) e.o).name.equals(name))
@@ -747,6 +1259,7 @@ public class Node {
      * @return new insertion point, or end if not found
      */
     public @NotNull InsertPoint afterBranch(@NotNull String name) {
+        load();
         for (int i = 0; i < order.size(); i++) {
             Entry e = order.get(i);
             if (e.t == EntryType.BRANCH && ((Node) e.o).name.equals(name))
@@ -760,10 +1273,11 @@ public class Node {
      * using the given indentation depth.
      */
     public String toString(int depth) {
+        load();
         String pad = "    ".repeat(depth);
         StringBuilder sb = new StringBuilder();
 
-        for (Entry e : order) {
+        for (Entry e : entries()) {
 
             if (e.t == EntryType.EMPTY_LINE) {
                 sb.append("\n");
@@ -786,9 +1300,10 @@ public class Node {
                         .append(v.assign == ':' ? ": " : " = ")
                         .append(v);
 
-                for (Comment c : v.comments)
-                    if (c.type == CommentType.INLINE_VALUE)
-                        sb.append(" ").append(c.slash ? "//" : "#").append(c.text);
+                if (v.hasComments())
+                    for (Comment c : v.comments)
+                        if (c.type == CommentType.INLINE_VALUE)
+                            sb.append(" ").append(c.slash ? "//" : "#").append(c.text);
 
                 sb.append("\n");
                 continue;
@@ -797,9 +1312,9 @@ public class Node {
             if (e.t == EntryType.BRANCH) {
                 Node ch = (Node) e.o;
 
-                sb.append(pad).append(ch.name).append(" {");
+                sb.append(pad).append(ch.label()).append(" {");
 
-                for (Comment c : ch.inlineComments)
+                for (Comment c : ch.inline())
                     if (c.type == CommentType.START_BRANCH)
                         sb.append(" ").append(c.slash ? "//" : "#").append(c.text);
 
@@ -807,7 +1322,7 @@ public class Node {
                 sb.append(ch.toString(depth + 1));
                 sb.append(pad).append("}");
 
-                for (Comment c : ch.inlineComments)
+                for (Comment c : ch.inline())
                     if (c.type == CommentType.END_BRANCH)
                         sb.append(" ").append(c.slash ? "//" : "#").append(c.text);
 
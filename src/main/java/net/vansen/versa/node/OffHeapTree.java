@@ -0,0 +1,620 @@
+package net.vansen.versa.node;
+
+import net.vansen.versa.node.value.PackedList;
+import net.vansen.versa.node.value.ValueType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only copy of a tree encoded into one direct {@link ByteBuffer}, outside the Java heap.
+ * <p>
+ * Very large trees held as {@link Node}s are millions of small long-lived objects that every full GC has
+ * to trace. Here the whole tree is a single buffer of offsets the GC never looks into. Lookups walk those
+ * offsets directly: the getters and a reused {@link Cursor} allocate nothing, except {@link String}s handed
+ * back to the caller. String paths are matched in place without being split.
+ *
+ * <pre>{@code
+ * OffHeapTree t = Versa.parse(path).offHeap();
+ *
+ * long limit = t.getLong("tables.rates.limit", 0);
+ *
+ * OffHeapTree.Cursor c = t.cursor();   // one per thread
+ * if (c.moveTo("tables.rates.steps"))
+ *     for (int i = 0, n = c.size(); i < n; i++) {
+ *         c.element(i);
+ *         sum += c.asLong();
+ *     }
+ * }</pre>
+ * <p>
+ * Comments and entry order are not kept. The buffer is limited to 2 GB; split larger data over several
+ * trees. Values read the same as through {@link Node}: {@link #getLong} of a decimal is 0, as with
+ * {@link Value#asLong()}.
+ * <p>
+ * Layout: all numbers are in native byte order. A node is two open-addressing tables of
+ * {@code [hash][name offset][target offset]} slots, for values and for branches, each preceded by its
+ * size and filled in tree order so the first of several equal names is found first. A name or string is
+ * {@code [length][chars]}. A value is a type byte followed by a long, a double, a string, or for lists
+ * {@code [count][form]} and then either inline longs or doubles, or the element offsets.
+ */
+@SuppressWarnings("unused")
+public final class OffHeapTree {
+    private static final int OFFSETS = 0, LONGS = 1, DOUBLES = 2;
+    private static final ValueType[] TYPES = ValueType.values();
+
+    private final ByteBuffer buf;
+
+    private OffHeapTree(ByteBuffer buf) {
+        this.buf = buf;
+    }
+
+    /**
+     * Encodes a tree, loading lazily parsed branches on the way.
+     *
+     * @param root tree to copy
+     * @return the off-heap copy
+     * @throws IllegalArgumentException if the encoded tree would not fit in 2 GB
+     */
+    public static @NotNull OffHeapTree of(@NotNull Node root) {
+        long size = size(root);
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Tree needs " + size + " bytes, more than one buffer can hold");
+        ByteBuffer b = ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder());
+        int end = new Writer(b).node(root, 0);
+        if (end != size) throw new IllegalStateException("Encoded " + end + " bytes, expected " + size);
+        return new OffHeapTree(b.asReadOnlyBuffer().order(ByteOrder.nativeOrder()));
+    }
+
+    /**
+     * @return bytes used off-heap
+     */
+    public int bytes() {
+        return buf.capacity();
+    }
+
+    /**
+     * @return a new cursor at the root, for one thread to reuse across lookups
+     */
+    public @NotNull Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * @see Node#hasPath(String)
+     */
+    public boolean hasPath(@NotNull String path) {
+        return value(0, path) >= 0;
+    }
+
+    /**
+     * @see Node#getString(String, String)
+     */
+    public String getString(@NotNull String path, @Nullable String def) {
+        int v = value(0, path);
+        return v < 0 ? def : string(v);
+    }
+
+    /**
+     * @see Node#getInteger(String, int)
+     */
+    public int getInteger(@NotNull String path, int def) {
+        int v = value(0, path);
+        return v < 0 ? def : (int) asLong(v);
+    }
+
+    /**
+     * @see Node#getLong(String, long)
+     */
+    public long getLong(@NotNull String path, long def) {
+        int v = value(0, path);
+        return v < 0 ? def : asLong(v);
+    }
+
+    /**
+     * @see Node#getDouble(String, double)
+     */
+    public double getDouble(@NotNull String path, double def) {
+        int v = value(0, path);
+        return v < 0 ? def : asDouble(v);
+    }
+
+    /**
+     * @see Node#getBool(String, boolean)
+     */
+    public boolean getBool(@NotNull String path, boolean def) {
+        int v = value(0, path);
+        return v < 0 ? def : asLong(v) != 0;
+    }
+
+    /**
+     * @see Node#hasPath(VersaPath)
+     */
+    public boolean hasPath(@NotNull VersaPath path) {
+        return value(0, path) >= 0;
+    }
+
+    /**
+     * @see Node#getString(VersaPath, String)
+     */
+    public String getString(@NotNull VersaPath path, @Nullable String def) {
+        int v = value(0, path);
+        return v < 0 ? def : string(v);
+    }
+
+    /**
+     * @see Node#getInteger(VersaPath, int)
+     */
+    public int getInteger(@NotNull VersaPath path, int def) {
+        int v = value(0, path);
+        return v < 0 ? def : (int) asLong(v);
+    }
+
+    /**
+     * @see Node#getLong(VersaPath, long)
+     */
+    public long getLong(@NotNull VersaPath path, long def) {
+        int v = value(0, path);
+        return v < 0 ? def : asLong(v);
+    }
+
+    /**
+     * @see Node#getDouble(VersaPath, double)
+     */
+    public double getDouble(@NotNull VersaPath path, double def) {
+        int v = value(0, path);
+        return v < 0 ? def : asDouble(v);
+    }
+
+    /**
+     * @see Node#getBool(VersaPath, boolean)
+     */
+    public boolean getBool(@NotNull VersaPath path, boolean def) {
+        int v = value(0, path);
+        return v < 0 ? def : asLong(v) != 0;
+    }
+
+    /**
+     * A movable view of one value in the tree. Moving it only changes a few ints, so one cursor can serve
+     * any number of lookups. Paths are resolved from the cursor's base branch, the root unless changed with
+     * {@link #enter(String)}. Not thread-safe; give each thread its own.
+     */
+    public final class Cursor {
+        private int base;
+        private int type = -1;
+        private int data;
+        private int list = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * Moves the base back to the root and clears the current value.
+         */
+        public @NotNull Cursor reset() {
+            base = 0;
+            type = -1;
+            list = -1;
+            return this;
+        }
+
+        /**
+         * Moves to the value at {@code path}, relative to the base branch.
+         *
+         * @return false, leaving the cursor unchanged, if there is no such value
+         */
+        public boolean moveTo(@NotNull String path) {
+            return at(value(base, path));
+        }
+
+        /**
+         * @see #moveTo(String)
+         */
+        public boolean moveTo(@NotNull VersaPath path) {
+            return at(value(base, path));
+        }
+
+        /**
+         * Makes the branch at {@code path}, relative to the base branch, the new base.
+         *
+         * @return false, leaving the cursor unchanged, if there is no such branch
+         */
+        public boolean enter(@NotNull String path) {
+            int n = branch(base, path, 0, path.length());
+            if (n < 0) return false;
+            base = n;
+            type = -1;
+            list = -1;
+            return true;
+        }
+
+        /**
+         * @see #enter(String)
+         */
+        public boolean enter(@NotNull VersaPath path) {
+            int n = base;
+            for (int i = 0; i < path.parts.length && n >= 0; i++) n = child(n, path.parts[i]);
+            if (n < 0) return false;
+            base = n;
+            type = -1;
+            list = -1;
+            return true;
+        }
+
+        /**
+         * Moves to element {@code i} of the list last reached with {@link #moveTo(String)} or
+         * {@link #enterList()}. The cursor stays in that list, so elements can be read one after another.
+         *
+         * @return false if no list was reached or {@code i} is out of range
+         */
+        public boolean element(int i) {
+            if (list < 0 || i < 0 || i >= buf.getInt(list)) return false;
+            int form = buf.get(list + 4);
+            int at = list + 5;
+            if (form == OFFSETS) {
+                int v = buf.getInt(at + 4 * i);
+                type = buf.get(v);
+                data = v + 1;
+            } else {
+                type = form == DOUBLES ? ValueType.DOUBLE.ordinal() : ValueType.LONG.ordinal();
+                data = at + 8 * i;
+            }
+            return true;
+        }
+
+        /**
+         * Makes the current value, a list nested in another list, the list that {@link #element(int)} reads.
+         *
+         * @return false if the current value is not a list
+         */
+        public boolean enterList() {
+            if (type != ValueType.LIST.ordinal()) return false;
+            list = data;
+            return true;
+        }
+
+        /**
+         * Makes branch {@code i} of the current list of branches the new base.
+         *
+         * @return false if the current value is not a list of branches or {@code i} is out of range
+         */
+        public boolean enterElement(int i) {
+            if (type != ValueType.LIST_OF_BRANCHES.ordinal() || i < 0 || i >= buf.getInt(data)) return false;
+            base = buf.getInt(data + 4 + 4 * i);
+            type = -1;
+            list = -1;
+            return true;
+        }
+
+        /**
+         * @return type of the current value, or null if the cursor is not on one
+         */
+        public @Nullable ValueType type() {
+            if (type < 0) return null;
+            if (type == ValueType.LONG.ordinal()) {
+                long l = buf.getLong(data);
+                return l == (int) l ? ValueType.INT : ValueType.LONG;
+            }
+            return TYPES[type];
+        }
+
+        /**
+         * @return element count of the current list or list of branches, 0 for other values
+         */
+        public int size() {
+            return type == ValueType.LIST.ordinal() || type == ValueType.LIST_OF_BRANCHES.ordinal() ? buf.getInt(data) : 0;
+        }
+
+        /**
+         * @see Value#asInt()
+         */
+        public int asInt() {
+            return (int) asLong();
+        }
+
+        /**
+         * @see Value#asLong()
+         */
+        public long asLong() {
+            return isInteger(type) ? buf.getLong(data) : 0;
+        }
+
+        /**
+         * @see Value#asDouble()
+         */
+        public double asDouble() {
+            return isDecimal(type) ? buf.getDouble(data) : 0;
+        }
+
+        /**
+         * @see Value#asBool()
+         */
+        public boolean asBool() {
+            return asLong() != 0;
+        }
+
+        /**
+         * @see Value#asString()
+         */
+        public @Nullable String asString() {
+            return type == ValueType.STRING.ordinal() ? text(data) : null;
+        }
+
+        private boolean at(int v) {
+            if (v < 0) return false;
+            type = buf.get(v);
+            data = v + 1;
+            list = type == ValueType.LIST.ordinal() ? data : -1;
+            return true;
+        }
+    }
+
+    private long asLong(int v) {
+        return isInteger(buf.get(v)) ? buf.getLong(v + 1) : 0;
+    }
+
+    private double asDouble(int v) {
+        return isDecimal(buf.get(v)) ? buf.getDouble(v + 1) : 0;
+    }
+
+    private String string(int v) {
+        return buf.get(v) == ValueType.STRING.ordinal() ? text(v + 1) : null;
+    }
+
+    private static boolean isInteger(int t) {
+        return t == ValueType.INT.ordinal() || t == ValueType.LONG.ordinal() || t == ValueType.BOOL.ordinal();
+    }
+
+    private static boolean isDecimal(int t) {
+        return t == ValueType.DOUBLE.ordinal() || t == ValueType.FLOAT.ordinal();
+    }
+
+    private String text(int at) {
+        int len = buf.getInt(at);
+        if (len < 0) return null;
+        char[] c = new char[len];
+        for (int i = 0; i < len; i++) c[i] = buf.getChar(at + 4 + 2 * i);
+        return new String(c);
+    }
+
+    /**
+     * Offset of the value at a dotted path below node {@code n}, or -1.
+     */
+    private int value(int n, String path) {
+        int dot = path.lastIndexOf('.');
+        if (dot >= 0) n = branch(n, path, 0, dot);
+        return n < 0 ? -1 : find(n, 0, path, dot + 1, path.length());
+    }
+
+    private int value(int n, VersaPath path) {
+        String[] p = path.parts;
+        for (int i = 0; i < p.length - 1 && n >= 0; i++) n = child(n, p[i]);
+        if (n < 0) return -1;
+        String k = p[p.length - 1];
+        return find(n, 0, k, 0, k.length());
+    }
+
+    /**
+     * Offset of the branch reached by the dot-separated names in {@code path[f, t)}, or -1.
+     */
+    private int branch(int n, String path, int f, int t) {
+        if (f == t) return n;
+        while (n >= 0) {
+            int dot = path.indexOf('.', f);
+            if (dot < 0 || dot > t) dot = t;
+            n = find(n, 1, path, f, dot);
+            if (dot == t) return n;
+            f = dot + 1;
+        }
+        return -1;
+    }
+
+    private int child(int n, String name) {
+        return find(n, 1, name, 0, name.length());
+    }
+
+    /**
+     * Probes one of the two tables of node {@code n}, values or branches, for the name {@code s[f, t)}.
+     */
+    private int find(int n, int group, String s, int f, int t) {
+        int h = 0;
+        for (int i = f; i < t; i++) h = 31 * h + s.charAt(i);
+
+        int vcap = buf.getInt(n);
+        int cap = group == 0 ? vcap : buf.getInt(n + 4);
+        if (cap == 0) return -1;
+        int at = n + 8 + 12 * (group == 0 ? 0 : vcap);
+
+        for (int i = spread(h) & (cap - 1); ; i = (i + 1) & (cap - 1)) {
+            int e = at + 12 * i;
+            int name = buf.getInt(e + 4);
+            if (name == 0) return -1;
+            if (buf.getInt(e) == h && same(name, s, f, t)) return buf.getInt(e + 8);
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Table size for {@code n} entries: a power of two at most three quarters full, 0 when empty.
+     */
+    private static int capacity(int n) {
+        if (n == 0) return 0;
+        int x = n + n / 3 + 1;
+        int c = Integer.highestOneBit(x);
+        return c == x ? c : c << 1;
+    }
+
+    private boolean same(int name, String s, int f, int t) {
+        if (buf.getInt(name) != t - f) return false;
+        for (int i = f, at = name + 4; i < t; i++, at += 2) if (buf.getChar(at) != s.charAt(i)) return false;
+        return true;
+    }
+
+    private static long size(Node n) {
+        n.load();
+        long s = 8 + 12L * (capacity(n.valueMap().size()) + capacity(n.branches().size()));
+        for (Map.Entry<String, Value> e : n.valueMap().entrySet()) s += chars(e.getKey()) + size(e.getValue());
+        for (Node c : n.branches()) s += chars(c.label()) + size(c);
+        return s;
+    }
+
+    private static long size(Value v) {
+        if (v.type == null) return 1;
+        return 1 + switch (v.type) {
+            case INT, LONG, BOOL, FLOAT, DOUBLE -> 8;
+            case STRING -> chars(v.sv);
+            case LIST -> {
+                if (v.list == null) yield 5;
+                int form = form(v.list);
+                long s = 5 + (form == OFFSETS ? 4L : 8L) * v.list.size();
+                if (form == OFFSETS) for (int i = 0; i < v.list.size(); i++) s += size(element(v.list, i));
+                yield s;
+            }
+            case LIST_OF_BRANCHES -> {
+                if (v.branchList == null) yield 4;
+                long s = 4 + 4L * v.branchList.size();
+                for (Node c : v.branchList) s += size(c);
+                yield s;
+            }
+        };
+    }
+
+    private static long chars(String s) {
+        return 4 + (s == null ? 0 : 2L * s.length());
+    }
+
+    private static int form(List<Value> l) {
+        if (!(l instanceof PackedList p)) return OFFSETS;
+        ValueType k = p.kind();
+        return k == ValueType.LONG ? LONGS : k == ValueType.DOUBLE ? DOUBLES : OFFSETS;
+    }
+
+    /**
+     * @return element {@code i}, without unpacking a {@link PackedList}
+     */
+    private static Value element(List<Value> l, int i) {
+        return l instanceof PackedList p ? p.valueAt(i) : l.get(i);
+    }
+
+    /**
+     * Writes records depth first, each one right after the last, in the same order {@link #size} counts them.
+     */
+    private static final class Writer {
+        private final ByteBuffer b;
+
+        Writer(ByteBuffer b) {
+            this.b = b;
+        }
+
+        int node(Node n, int at) {
+            n.load();
+            int vcap = capacity(n.valueMap().size()), ccap = capacity(n.branches().size());
+            b.putInt(at, vcap);
+            b.putInt(at + 4, ccap);
+            int vt = at + 8, ct = vt + 12 * vcap;
+            int end = ct + 12 * ccap;
+            for (Map.Entry<String, Value> e : n.valueMap().entrySet()) {
+                int slot = slot(vt, vcap, e.getKey().hashCode());
+                end = entry(slot, e.getKey(), end);
+                b.putInt(slot + 8, end);
+                end = value(e.getValue(), end);
+            }
+            for (Node c : n.branches()) {
+                int slot = slot(ct, ccap, c.label().hashCode());
+                end = entry(slot, c.label(), end);
+                b.putInt(slot + 8, end);
+                end = node(c, end);
+            }
+            return end;
+        }
+
+        private int slot(int table, int cap, int h) {
+            for (int i = spread(h) & (cap - 1); ; i = (i + 1) & (cap - 1))
+                if (b.getInt(table + 12 * i + 4) == 0) return table + 12 * i;
+        }
+
+        private int entry(int slot, String name, int at) {
+            b.putInt(slot, name.hashCode());
+            b.putInt(slot + 4, at);
+            return text(name, at);
+        }
+
+        private int value(Value v, int at) {
+            if (v.type == null) {
+                b.put(at, (byte) -1);
+                return at + 1;
+            }
+            b.put(at, (byte) v.type.ordinal());
+            at++;
+            switch (v.type) {
+                case INT, LONG, BOOL -> {
+                    b.putLong(at, v.iv);
+                    return at + 8;
+                }
+                case FLOAT, DOUBLE -> {
+                    b.putDouble(at, v.dv);
+                    return at + 8;
+                }
+                case STRING -> {
+                    return text(v.sv, at);
+                }
+                case LIST -> {
+                    List<Value> l = v.list == null ? List.of() : v.list;
+                    int form = form(l);
+                    b.putInt(at, l.size());
+                    b.put(at + 4, (byte) form);
+                    at += 5;
+                    if (form == LONGS) {
+                        for (long x : ((PackedList) l).toLongArray()) at = put(at, x);
+                        return at;
+                    }
+                    if (form == DOUBLES) {
+                        for (double x : ((PackedList) l).toDoubleArray()) at = put(at, Double.doubleToRawLongBits(x));
+                        return at;
+                    }
+                    int end = at + 4 * l.size();
+                    for (int i = 0; i < l.size(); i++) {
+                        b.putInt(at, end);
+                        at += 4;
+                        end = value(element(l, i), end);
+                    }
+                    return end;
+                }
+                default -> {
+                    List<Node> l = v.branchList == null ? List.of() : v.branchList;
+                    b.putInt(at, l.size());
+                    at += 4;
+                    int end = at + 4 * l.size();
+                    for (Node c : l) {
+                        b.putInt(at, end);
+                        at += 4;
+                        end = node(c, end);
+                    }
+                    return end;
+                }
+            }
+        }
+
+        private int put(int at, long x) {
+            b.putLong(at, x);
+            return at + 8;
+        }
+
+        private int text(String s, int at) {
+            if (s == null) {
+                b.putInt(at, -1);
+                return at + 4;
+            }
+            b.putInt(at, s.length());
+            at += 4;
+            for (int i = 0; i < s.length(); i++, at += 2) b.putChar(at, s.charAt(i));
+            return at;
+        }
+    }
+}
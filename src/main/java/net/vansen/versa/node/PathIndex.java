@@ -0,0 +1,55 @@
+package net.vansen.versa.node;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Flat map from full dotted path to {@link Value} for one tree, see {@link Node#indexPaths()}.
+ * <p>
+ * The map remembers the {@link Node#revision()} of the node it was built for. Changes anywhere below
+ * that node count toward its revision, so the map is rebuilt on the next lookup after one of them,
+ * while edits to other trees leave it alone.
+ */
+final class PathIndex {
+    private volatile Built built;
+
+    Value get(Node root, String path) {
+        Built b = built;
+        if (b == null || b.at != root.revision()) b = build(root);
+        return b.map.get(path);
+    }
+
+    void clear() {
+        built = null;
+    }
+
+    /**
+     * Builds the map for the revision read before walking the tree, so a change made meanwhile
+     * makes the result stale rather than wrong. Map and revision are published together.
+     */
+    private synchronized Built build(Node root) {
+        int rev = root.revision();
+        Built b = built;
+        if (b != null && b.at == rev) return b;
+        Map<String, Value> m = new HashMap<>();
+        add(m, root, "");
+        b = new Built(m, rev);
+        built = b;
+        return b;
+    }
+
+    /**
+     * Adds the values reachable from {@code n} the way a path walk would find them:
+     * keys containing a dot are unreachable, and of several branches with one name only the first counts.
+     */
+    private static void add(Map<String, Value> m, Node n, String prefix) {
+        n.load();
+        for (Map.Entry<String, Value> e : n.values.entrySet())
+            if (e.getKey().indexOf('.') < 0) m.put(prefix + e.getKey(), e.getValue());
+        for (Node c : n.children)
+            if (c.name.indexOf('.') < 0 && n.getBranch(c.name) == c) add(m, c, prefix + c.name + ".");
+    }
+
+    private record Built(Map<String, Value> map, int at) {
+    }
+}
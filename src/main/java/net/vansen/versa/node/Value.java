@@ -1,7 +1,11 @@
 package net.vansen.versa.node;
 
 import net.vansen.versa.comments.Comment;
+import net.vansen.versa.node.value.PackedList;
 import net.vansen.versa.node.value.ValueType;
+import net.vansen.versa.utils.Numbers;
+
+import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,9 +24,45 @@ public class Value {
     public String sv;
     public List<Value> list;
     public List<Node> branchList;
-    public List<Comment> comments = new ArrayList<>();
+
     public char assign = '=';
 
+    /**
+     * Comments attached to this value.
+     * <p>
+     * To save a list per value, this is null until a comment is attached, where it used to start as an empty
+     * list. Code that adds to it directly should call {@link #getComments()}, which creates the list on first
+     * use, or {@link #addComment(Comment)}; code that reads it should allow for null or use {@link #hasComments()}.
+     */
+    public List<Comment> comments;
+
+    /**
+     * Returns the comments attached to this value. The list is created on the first call,
+     * so values without comments cost nothing for it, and it can be changed directly.
+     *
+     * @return this value's comments
+     */
+    public @NotNull List<Comment> getComments() {
+        if (comments == null) comments = new ArrayList<>(1);
+        return comments;
+    }
+
+    /**
+     * @return true if this value has any comments, without creating its comment list
+     */
+    public boolean hasComments() {
+        return comments != null && !comments.isEmpty();
+    }
+
+    /**
+     * Attaches a comment, creating this value's comment list if it has none yet.
+     *
+     * @param c comment to attach
+     */
+    public void addComment(@NotNull Comment c) {
+        getComments().add(c);
+    }
+
     /**
      * Returns this value as an int.
      */
@@ -72,6 +112,73 @@ public class Value {
         return list;
     }
 
+    /**
+     * Returns the elements of this list as ints, or null if this is not a list.
+     * Packed integer lists are copied out in one go, others are converted element by element.
+     */
+    public int[] asIntArray() {
+        if (list instanceof PackedList p && p.kind() == ValueType.LONG) return p.toIntArray();
+        if (list == null) return null;
+        int[] a = new int[list.size()];
+        for (int i = 0; i < a.length; i++) a[i] = element(i).asInt();
+        return a;
+    }
+
+    /**
+     * Returns the elements of this list as longs, or null if this is not a list.
+     */
+    public long[] asLongArray() {
+        if (list instanceof PackedList p && p.kind() == ValueType.LONG) return p.toLongArray();
+        if (list == null) return null;
+        long[] a = new long[list.size()];
+        for (int i = 0; i < a.length; i++) a[i] = element(i).asLong();
+        return a;
+    }
+
+    /**
+     * Returns the elements of this list as doubles, or null if this is not a list.
+     * Integer elements are widened, so {@code [1, 2.5]} reads as {@code {1.0, 2.5}}.
+     */
+    public double[] asDoubleArray() {
+        if (list instanceof PackedList p && (p.kind() == ValueType.DOUBLE || p.kind() == ValueType.LONG)) return p.toDoubleArray();
+        if (list == null) return null;
+        double[] a = new double[list.size()];
+        for (int i = 0; i < a.length; i++) {
+            Value x = element(i);
+            a[i] = x.isInt() || x.isLong() ? x.iv : x.dv;
+        }
+        return a;
+    }
+
+    /**
+     * Returns the elements of this list as booleans, or null if this is not a list.
+     */
+    public boolean[] asBoolArray() {
+        if (list instanceof PackedList p && p.kind() == ValueType.BOOL) return p.toBoolArray();
+        if (list == null) return null;
+        boolean[] a = new boolean[list.size()];
+        for (int i = 0; i < a.length; i++) a[i] = element(i).asBool();
+        return a;
+    }
+
+    /**
+     * Returns the elements of this list as strings, or null if this is not a list.
+     */
+    public String[] asStringArray() {
+        if (list instanceof PackedList p && p.kind() == ValueType.STRING) return p.toStringArray();
+        if (list == null) return null;
+        String[] a = new String[list.size()];
+        for (int i = 0; i < a.length; i++) a[i] = element(i).asString();
+        return a;
+    }
+
+    /**
+     * @return list element {@code i}, without unpacking a {@link PackedList}
+     */
+    private Value element(int i) {
+        return list instanceof PackedList p ? p.valueAt(i) : list.get(i);
+    }
+
     /**
      * Returns this value as a list of branch nodes.
      */
@@ -160,12 +267,12 @@ public class Value {
         if (isString()) return "\"" + sv + "\"";
         if (isBool()) return iv == 1 ? "true" : "false";
         if (isInt() || isLong()) return Long.toString(iv);
-        if (isFloat() || isDouble()) return Double.toString(dv);
+        if (isFloat() || isDouble()) return Numbers.toString(dv);
         if (isList()) {
             StringBuilder b = new StringBuilder("[");
             for (int i = 0; i < list.size(); i++) {
                 if (i > 0) b.append(", ");
-                b.append(list.get(i));
+                b.append(element(i));
             }
             b.append("]");
             return b.toString();
@@ -0,0 +1,96 @@
+package net.vansen.versa.node;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A dotted lookup path such as {@code database.pool.size}, split once up front.
+ * <p>
+ * Every {@link Node} getter that takes a {@code String} path splits it on each call. For values read
+ * often, keep a {@code VersaPath} in a constant and use the matching overload instead: the segments
+ * are already split and their hashes already computed, so a lookup allocates nothing.
+ *
+ * <pre>{@code
+ * static final VersaPath POOL_SIZE = VersaPath.of("database.pool.size");
+ *
+ * int size = root.getInteger(POOL_SIZE, 10);
+ * }</pre>
+ */
+@SuppressWarnings("unused")
+public final class VersaPath {
+    private final String text;
+    final String[] parts;
+
+    private VersaPath(@NotNull String text, @NotNull String[] parts) {
+        this.text = text;
+        this.parts = parts;
+        for (String p : parts) p.hashCode();
+    }
+
+    /**
+     * @param path dot-separated path like {@code "branch.sub.value"}
+     * @return the compiled path
+     * @throws IllegalArgumentException if the path is empty or has an empty segment, as in {@code "a..b"} or {@code "a."}
+     */
+    public static @NotNull VersaPath of(@NotNull String path) {
+        String[] parts = path.split("\\.", -1);
+        for (String p : parts) {
+            if (p.isEmpty()) throw new IllegalArgumentException("Empty segment in path '" + path + "'");
+        }
+        return new VersaPath(path, parts);
+    }
+
+    /**
+     * @param segments branch names followed by the value key, none containing a dot
+     * @return the compiled path
+     * @throws IllegalArgumentException if there are no segments, or a segment is empty or contains a dot
+     */
+    public static @NotNull VersaPath of(@NotNull String... segments) {
+        if (segments.length == 0) throw new IllegalArgumentException("Path has no segments");
+        String[] parts = segments.clone();
+        for (String p : parts) {
+            if (p.isEmpty() || p.indexOf('.') >= 0) throw new IllegalArgumentException("Invalid path segment '" + p + "'");
+        }
+        return new VersaPath(String.join(".", parts), parts);
+    }
+
+    /**
+     * @return number of segments, including the final key
+     */
+    public int size() {
+        return parts.length;
+    }
+
+    /**
+     * @return segment {@code i}
+     */
+    public @NotNull String segment(int i) {
+        return parts[i];
+    }
+
+    /**
+     * @return the final segment, the value key
+     */
+    public @NotNull String key() {
+        return parts[parts.length - 1];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof VersaPath p && Arrays.equals(parts, p.parts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(parts);
+    }
+
+    /**
+     * @return the path in dotted form
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
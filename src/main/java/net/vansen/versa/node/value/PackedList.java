@@ -0,0 +1,488 @@
+package net.vansen.versa.node.value;
+
+import net.vansen.versa.node.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A {@code List<Value>} holding a list of one scalar kind in a primitive array instead of one {@link Value}
+ * per element: integers in a {@code long[]}, decimals in a {@code double[]}, booleans as packed bits and
+ * strings in a {@code String[]}.
+ * <p>
+ * The parser stores homogeneous lists this way. Read them in bulk with {@link Value#asLongArray()} and the
+ * other array accessors, or one element at a time with {@link #raw(int)} and {@link #valueAt(int)}, and the
+ * list stays packed. {@link #contains(Object)}, {@link #indexOf(Object)} and {@link #remove(Object)} compare
+ * the element's value, and elements of the list's kind can be set, added and removed in place.
+ * <p>
+ * The first {@link #get(int)}, which plain iteration also calls, or a change that adds an element of another
+ * kind, turns the list into an ordinary list of values and drops the arrays. From then on it behaves exactly
+ * like an {@link ArrayList}, {@code get} returns the same {@link Value} each time so changes to it stick, and
+ * {@link #kind()} returns null. A read-only list never changes form and hands out a new {@link Value} from
+ * every {@code get}.
+ */
+@SuppressWarnings("unused")
+public final class PackedList extends AbstractList<Value> implements RandomAccess {
+    private static final VarHandle VALUES;
+
+    static {
+        try {
+            VALUES = MethodHandles.lookup().findVarHandle(PackedList.class, "values", List.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final ValueType kind;
+    /*
+     * The arrays are volatile because unpacking clears them while readers may be on them: a reader that finds
+     * its array gone is guaranteed to see the values that replaced it.
+     */
+    private volatile long[] longs;
+    private volatile double[] doubles;
+    private volatile String[] strings;
+    private int size;
+    private boolean readOnly;
+    private volatile List<Value> values;
+
+    private PackedList(ValueType kind, long[] longs, double[] doubles, String[] strings, int size) {
+        this.kind = kind;
+        this.longs = longs;
+        this.doubles = doubles;
+        this.strings = strings;
+        this.size = size;
+    }
+
+    /**
+     * @return {@link ValueType#LONG} for integers, or {@link ValueType#DOUBLE}, {@link ValueType#BOOL} or
+     * {@link ValueType#STRING}; null once the list holds values instead
+     */
+    public @Nullable ValueType kind() {
+        return values == null ? kind : null;
+    }
+
+    @Override
+    public int size() {
+        List<Value> vs = values;
+        return vs != null ? vs.size() : size;
+    }
+
+    @Override
+    public Value get(int i) {
+        return readOnly ? valueAt(i) : unpack().get(i);
+    }
+
+    /**
+     * @return a new {@link Value} holding element {@code i}; unlike {@link #get(int)} this keeps the list
+     * packed, and changing the result does not change the list
+     */
+    public @NotNull Value valueAt(int i) {
+        Object a = store();
+        if (a == null) return values.get(i);
+        check(i, size);
+        return make(a, i);
+    }
+
+    /**
+     * @return element {@code i} as {@link Value#raw()} would return it, without building a {@link Value}
+     */
+    public Object raw(int i) {
+        Object a = store();
+        if (a == null) return values.get(i).raw();
+        check(i, size);
+        return switch (kind) {
+            case LONG -> ((long[]) a)[i];
+            case DOUBLE -> ((double[]) a)[i];
+            case BOOL -> bit((long[]) a, i) ? 1L : 0L;
+            default -> ((String[]) a)[i];
+        };
+    }
+
+    @Override
+    public Value set(int i, Value v) {
+        writable();
+        Object a = store();
+        if (a == null || !fits(v)) return unpack().set(i, v);
+        check(i, size);
+        Value old = make(a, i);
+        put(i, v);
+        return old;
+    }
+
+    @Override
+    public void add(int i, Value v) {
+        writable();
+        if (store() == null || !fits(v)) {
+            unpack().add(i, v);
+            modCount++;
+            return;
+        }
+        check(i, size + 1);
+        grow(size + 1);
+        switch (kind) {
+            case LONG -> System.arraycopy(longs, i, longs, i + 1, size - i);
+            case DOUBLE -> System.arraycopy(doubles, i, doubles, i + 1, size - i);
+            case BOOL -> {
+                long[] l = longs;
+                for (int j = size; j > i; j--) flip(l, j, bit(l, j - 1));
+            }
+            default -> System.arraycopy(strings, i, strings, i + 1, size - i);
+        }
+        size++;
+        modCount++;
+        put(i, v);
+    }
+
+    @Override
+    public Value remove(int i) {
+        writable();
+        Object a = store();
+        if (a == null) {
+            Value old = values.remove(i);
+            modCount++;
+            return old;
+        }
+        check(i, size);
+        Value old = make(a, i);
+        switch (kind) {
+            case LONG -> System.arraycopy(longs, i + 1, longs, i, size - i - 1);
+            case DOUBLE -> System.arraycopy(doubles, i + 1, doubles, i, size - i - 1);
+            case BOOL -> {
+                long[] l = longs;
+                for (int j = i; j < size - 1; j++) flip(l, j, bit(l, j + 1));
+            }
+            default -> {
+                System.arraycopy(strings, i + 1, strings, i, size - i - 1);
+                strings[size - 1] = null;
+            }
+        }
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int i = indexOf(o);
+        if (i < 0) return false;
+        remove(i);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        Object a = store();
+        if (a == null) return values.indexOf(o);
+        if (!(o instanceof Value v) || !fits(v)) return -1;
+        for (int i = 0; i < size; i++) if (same(a, i, v)) return i;
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        Object a = store();
+        if (a == null) return values.lastIndexOf(o);
+        if (!(o instanceof Value v) || !fits(v)) return -1;
+        for (int i = size - 1; i >= 0; i--) if (same(a, i, v)) return i;
+        return -1;
+    }
+
+    /**
+     * @return the integers of a {@link ValueType#LONG} list, or null for other kinds
+     */
+    public long[] toLongArray() {
+        return kind == ValueType.LONG && store() instanceof long[] l ? Arrays.copyOf(l, size) : null;
+    }
+
+    /**
+     * @return the integers of a {@link ValueType#LONG} list narrowed to int, or null for other kinds
+     */
+    public int[] toIntArray() {
+        if (kind != ValueType.LONG || !(store() instanceof long[] l)) return null;
+        int[] a = new int[size];
+        for (int i = 0; i < size; i++) a[i] = (int) l[i];
+        return a;
+    }
+
+    /**
+     * @return the numbers of a {@link ValueType#DOUBLE} or {@link ValueType#LONG} list, or null for other kinds
+     */
+    public double[] toDoubleArray() {
+        Object s = store();
+        if (s instanceof double[] d) return Arrays.copyOf(d, size);
+        if (kind != ValueType.LONG || !(s instanceof long[] l)) return null;
+        double[] a = new double[size];
+        for (int i = 0; i < size; i++) a[i] = l[i];
+        return a;
+    }
+
+    /**
+     * @return the flags of a {@link ValueType#BOOL} list, or null for other kinds
+     */
+    public boolean[] toBoolArray() {
+        if (kind != ValueType.BOOL || !(store() instanceof long[] l)) return null;
+        boolean[] a = new boolean[size];
+        for (int i = 0; i < size; i++) a[i] = bit(l, i);
+        return a;
+    }
+
+    /**
+     * @return the strings of a {@link ValueType#STRING} list, or null for other kinds
+     */
+    public String[] toStringArray() {
+        return store() instanceof String[] s ? Arrays.copyOf(s, size) : null;
+    }
+
+    /**
+     * @return a copy of this list, trimmed to size; a list that already holds values is copied shallowly
+     */
+    public @NotNull PackedList copy() {
+        Object a = store();
+        if (a == null) {
+            PackedList p = new PackedList(kind, null, null, null, 0);
+            p.values = new ArrayList<>(values);
+            return p;
+        }
+        return switch (kind) {
+            case LONG -> new PackedList(kind, Arrays.copyOf((long[]) a, size), null, null, size);
+            case BOOL -> new PackedList(kind, Arrays.copyOf((long[]) a, (size + 63) >>> 6), null, null, size);
+            case DOUBLE -> new PackedList(kind, null, Arrays.copyOf((double[]) a, size), null, size);
+            default -> new PackedList(kind, null, null, Arrays.copyOf((String[]) a, size), size);
+        };
+    }
+
+    /**
+     * @return a copy of this list that rejects every change
+     */
+    public @NotNull PackedList readOnly() {
+        PackedList p = copy();
+        if (p.values != null) p.values = Collections.unmodifiableList(p.values);
+        p.readOnly = true;
+        return p;
+    }
+
+    /**
+     * Turns the list into a list of values and drops the arrays. Readers may race to do this under a shared
+     * lock, so the first list published wins and everyone returns that one.
+     */
+    private List<Value> unpack() {
+        List<Value> vs = values;
+        if (vs != null) return vs;
+        Object a = store();
+        if (a == null) return values;
+        List<Value> mine = new ArrayList<>(Math.max(size, 10));
+        for (int i = 0; i < size; i++) mine.add(make(a, i));
+        if (!VALUES.compareAndSet(this, null, mine)) return values;
+        longs = null;
+        doubles = null;
+        strings = null;
+        return mine;
+    }
+
+    /**
+     * @return the array holding this list's kind, or null once the list holds values
+     */
+    private Object store() {
+        return switch (kind) {
+            case LONG, BOOL -> longs;
+            case DOUBLE -> doubles;
+            default -> strings;
+        };
+    }
+
+    private Value make(Object a, int i) {
+        Value v = new Value();
+        switch (kind) {
+            case LONG -> {
+                v.iv = ((long[]) a)[i];
+                v.type = v.iv == (int) v.iv ? ValueType.INT : ValueType.LONG;
+            }
+            case DOUBLE -> {
+                v.dv = ((double[]) a)[i];
+                v.type = ValueType.DOUBLE;
+            }
+            case BOOL -> {
+                v.iv = bit((long[]) a, i) ? 1 : 0;
+                v.type = ValueType.BOOL;
+            }
+            default -> {
+                v.sv = ((String[]) a)[i];
+                v.type = ValueType.STRING;
+            }
+        }
+        return v;
+    }
+
+    private boolean same(Object a, int i, Value v) {
+        return switch (kind) {
+            case LONG -> ((long[]) a)[i] == v.iv;
+            case DOUBLE -> Double.doubleToLongBits(((double[]) a)[i]) == Double.doubleToLongBits(v.dv);
+            case BOOL -> bit((long[]) a, i) == (v.iv != 0);
+            default -> Objects.equals(((String[]) a)[i], v.sv);
+        };
+    }
+
+    private void writable() {
+        if (readOnly) throw new UnsupportedOperationException("List is read-only");
+    }
+
+    private boolean fits(Value v) {
+        return v != null && kindOf(v.type) == kind;
+    }
+
+    private void put(int i, Value v) {
+        switch (kind) {
+            case LONG -> longs[i] = v.iv;
+            case DOUBLE -> doubles[i] = v.dv;
+            case BOOL -> flip(longs, i, v.iv != 0);
+            default -> strings[i] = v.sv;
+        }
+    }
+
+    private void grow(int n) {
+        switch (kind) {
+            case LONG -> {
+                if (n > longs.length) longs = Arrays.copyOf(longs, Math.max(n, longs.length * 2));
+            }
+            case DOUBLE -> {
+                if (n > doubles.length) doubles = Arrays.copyOf(doubles, Math.max(n, doubles.length * 2));
+            }
+            case BOOL -> {
+                if ((n + 63) >>> 6 > longs.length) longs = Arrays.copyOf(longs, Math.max((n + 63) >>> 6, longs.length * 2));
+            }
+            default -> {
+                if (n > strings.length) strings = Arrays.copyOf(strings, Math.max(n, strings.length * 2));
+            }
+        }
+    }
+
+    private static boolean bit(long[] l, int i) {
+        return (l[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private static void flip(long[] l, int i, boolean on) {
+        if (on) l[i >>> 6] |= 1L << i;
+        else l[i >>> 6] &= ~(1L << i);
+    }
+
+    private static void check(int i, int n) {
+        if (i < 0 || i >= n) throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + n);
+    }
+
+    private static ValueType kindOf(ValueType t) {
+        if (t == null) return null;
+        return switch (t) {
+            case INT, LONG -> ValueType.LONG;
+            case DOUBLE -> ValueType.DOUBLE;
+            case BOOL -> ValueType.BOOL;
+            case STRING -> ValueType.STRING;
+            default -> null;
+        };
+    }
+
+    /**
+     * Collects list elements as long as they are all of one scalar kind, for the parser.
+     */
+    public static final class Builder {
+        private ValueType kind;
+        private long[] longs;
+        private double[] doubles;
+        private String[] strings;
+        private int size;
+
+        /**
+         * @return false if the list already holds another kind
+         */
+        public boolean add(long v) {
+            if (!start(ValueType.LONG)) return false;
+            if (size == longs.length) longs = Arrays.copyOf(longs, size * 2);
+            longs[size++] = v;
+            return true;
+        }
+
+        /**
+         * @return false if the list already holds another kind
+         */
+        public boolean add(double v) {
+            if (!start(ValueType.DOUBLE)) return false;
+            if (size == doubles.length) doubles = Arrays.copyOf(doubles, size * 2);
+            doubles[size++] = v;
+            return true;
+        }
+
+        /**
+         * @return false if the list already holds another kind
+         */
+        public boolean add(boolean v) {
+            if (!start(ValueType.BOOL)) return false;
+            if (size >>> 6 == longs.length) longs = Arrays.copyOf(longs, longs.length * 2);
+            if (v) longs[size >>> 6] |= 1L << size;
+            size++;
+            return true;
+        }
+
+        /**
+         * @return false if the list already holds another kind
+         */
+        public boolean add(@NotNull String v) {
+            if (!start(ValueType.STRING)) return false;
+            if (size == strings.length) strings = Arrays.copyOf(strings, size * 2);
+            strings[size++] = v;
+            return true;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return what was collected so far as a plain, growable list of values
+         */
+        public @NotNull List<Value> values() {
+            List<Value> out = new ArrayList<>(Math.max(size * 2, 10));
+            if (kind != null) {
+                PackedList p = build();
+                for (int i = 0; i < size; i++) out.add(p.valueAt(i));
+            }
+            return out;
+        }
+
+        /**
+         * @return the packed list, trimmed to size
+         */
+        public @NotNull PackedList build() {
+            return switch (kind) {
+                case LONG -> new PackedList(kind, Arrays.copyOf(longs, size), null, null, size);
+                case DOUBLE -> new PackedList(kind, null, Arrays.copyOf(doubles, size), null, size);
+                case BOOL -> new PackedList(kind, Arrays.copyOf(longs, (size + 63) >>> 6), null, null, size);
+                default -> new PackedList(kind, null, null, Arrays.copyOf(strings, size), size);
+            };
+        }
+
+        private boolean start(ValueType k) {
+            if (kind == k) return true;
+            if (kind != null) return false;
+            kind = k;
+            switch (k) {
+                case LONG, BOOL -> longs = new long[8];
+                case DOUBLE -> doubles = new double[8];
+                default -> strings = new String[8];
+            }
+            return true;
+        }
+    }
+}
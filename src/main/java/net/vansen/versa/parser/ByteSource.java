@@ -0,0 +1,63 @@
+package net.vansen.versa.parser;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A {@link Reader} that hands out raw bytes, one byte per char, without decoding them.
+ * <p>
+ * Every character the Versa grammar branches on is ASCII, and every byte of a multi-byte UTF-8
+ * sequence is 0x80 or above, so the parser can scan UTF-8 bytes as they are. It only decodes the
+ * keys, values and comments it keeps.
+ */
+final class ByteSource extends Reader {
+    private final ByteBuffer src;
+    private final ReadableByteChannel ch;
+
+    /**
+     * Reads the remaining bytes of {@code src}.
+     */
+    ByteSource(@NotNull ByteBuffer src) {
+        this.src = src;
+        this.ch = null;
+    }
+
+    /**
+     * Reads {@code ch} through a buffer of {@code size} bytes. The channel is not closed.
+     */
+    ByteSource(@NotNull ReadableByteChannel ch, int size) {
+        this.src = ByteBuffer.allocate(size).flip();
+        this.ch = ch;
+    }
+
+    @Override
+    public int read(char @NotNull [] cbuf, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        while (!src.hasRemaining()) {
+            if (ch == null) return -1;
+            src.clear();
+            int r = ch.read(src);
+            src.flip();
+            if (r < 0) return -1;
+        }
+
+        int n = Math.min(len, src.remaining());
+        if (src.hasArray()) {
+            byte[] a = src.array();
+            int p = src.arrayOffset() + src.position();
+            for (int i = 0; i < n; i++) cbuf[off + i] = (char) (a[p + i] & 0xFF);
+            src.position(src.position() + n);
+        } else {
+            for (int i = 0; i < n; i++) cbuf[off + i] = (char) (src.get() & 0xFF);
+        }
+        return n;
+    }
+
+    @Override
+    public void close() {
+    }
+}
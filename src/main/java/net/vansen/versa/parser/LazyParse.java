@@ -0,0 +1,26 @@
+package net.vansen.versa.parser;
+
+import net.vansen.versa.node.Node;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Lazy parsing for {@link VersaParser#parseLazy()}: the top level is parsed up front, and each branch body is
+ * stepped over and kept as a source range that a nested lazy parser builds on first access.
+ */
+final class LazyParse {
+    private LazyParse() {
+    }
+
+    /**
+     * Parses {@code p} lazily, or eagerly while it records {@link VersaParser#positions}, which need every
+     * entry in one pass.
+     */
+    static @NotNull Node parse(@NotNull VersaParser p) {
+        p.readAll();
+        TreeBuilder t = new TreeBuilder();
+        if (p.positions == null) p.deferBranches(t);
+        p.parse(t);
+        if (p.positions != null) p.positions.root(t.root());
+        return t.root();
+    }
+}
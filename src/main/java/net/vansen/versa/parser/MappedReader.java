@@ -0,0 +1,91 @@
+package net.vansen.versa.parser;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link Reader} that decodes UTF-8 straight out of a memory-mapped file.
+ * <p>
+ * The file is mapped with {@link FileChannel#map} in chunks of up to 256 MB, so files
+ * larger than 2 GB work too. Nothing is copied onto the heap except the characters the
+ * caller asks for, and repeated reads of the same file are served from the OS page cache.
+ * <p>
+ * Malformed UTF-8 is reported as an {@link IOException}, same as {@code Files.readString}.
+ */
+public final class MappedReader extends Reader {
+    private static final long CHUNK = 1L << 28;
+
+    private final FileChannel ch;
+    private final long size;
+    private final CharsetDecoder dec = StandardCharsets.UTF_8.newDecoder();
+    private final CharBuffer pair = CharBuffer.allocate(2);
+    private MappedByteBuffer map;
+    private long base;
+    private boolean eof;
+
+    /**
+     * Opens and maps the given file.
+     *
+     * @param path file to read
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedReader(@NotNull Path path) throws IOException {
+        ch = FileChannel.open(path, StandardOpenOption.READ);
+        size = ch.size();
+        map(0);
+        pair.flip();
+    }
+
+    private void map(long at) throws IOException {
+        base = at;
+        map = ch.map(FileChannel.MapMode.READ_ONLY, at, Math.min(CHUNK, size - at));
+    }
+
+    @Override
+    public int read(char @NotNull [] cbuf, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (pair.hasRemaining()) {
+            cbuf[off] = pair.get();
+            return 1;
+        }
+        if (eof) return -1;
+
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (true) {
+            boolean last = base + map.limit() >= size;
+            CoderResult r = dec.decode(map, out, last);
+            if (r.isError()) r.throwException();
+            if (out.position() > off) return out.position() - off;
+
+            if (r.isOverflow()) {
+                pair.clear();
+                dec.decode(map, pair, last);
+                pair.flip();
+                cbuf[off] = pair.get();
+                return 1;
+            }
+
+            if (last) {
+                eof = true;
+                return -1;
+            }
+            map(base + map.position());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        map = null;
+        ch.close();
+    }
+}
@@ -0,0 +1,72 @@
+package net.vansen.versa.parser;
+
+import net.vansen.versa.node.Node;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parallel parsing for {@link VersaParser#parseParallel(ForkJoinPool)}: the input is cut into slices of
+ * top-level statements, the slices are parsed on a pool, and their roots are stitched back in source order.
+ */
+final class ParallelParse {
+    private static final int SLICE = 1 << 16;
+
+    private ParallelParse() {
+    }
+
+    /**
+     * Parses {@code p} in slices on {@code pool}, or sequentially when that would not pay off or cannot be done.
+     */
+    static @NotNull Node parse(@NotNull VersaParser p, @NotNull ForkJoinPool pool) {
+        int pos = p.position(), end = p.end();
+        if (p.streaming() || p.positions != null || end - pos < 2 * SLICE || pool.getParallelism() < 2) return p.parse();
+        int[] cuts = topLevelCuts(p.slice(pos, end, p.line()), Math.max(SLICE, (end - pos) / (pool.getParallelism() * 4)));
+        if (cuts == null || cuts.length == 2) return p.parse();
+
+        int n = cuts.length / 2;
+        List<ForkJoinTask<Node>> parts = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int from = cuts[2 * i], line = cuts[2 * i + 1];
+            int to = i + 1 < n ? cuts[2 * i + 2] - 1 : end;
+            VersaParser s = p.slice(from, to, line);
+            parts.add(pool.submit(() -> s.parse()));
+        }
+
+        Node root = new Node();
+        for (ForkJoinTask<Node> t : parts) {
+            Node part = t.join();
+            root.values.putAll(part.values);
+            root.children.addAll(part.children);
+            root.order.addAll(part.order);
+        }
+        return root;
+    }
+
+    /**
+     * Finds top-level statement starts at least {@code slice} chars apart, stepping over branch bodies
+     * with {@link VersaParser#statement(int[])}.
+     *
+     * @return pairs of (offset, line number), starting with the beginning of the input,
+     * or null if the branch nesting is unbalanced
+     */
+    private static int[] topLevelCuts(VersaParser p, int slice) {
+        int[] cuts = {p.position(), p.line()}, s = new int[3];
+        int n = 2, last = cuts[0];
+
+        for (int k; (k = p.statement(s)) != -1; ) {
+            if (k == -2) return null;
+            if (s[0] - last >= slice) {
+                if (n == cuts.length) cuts = Arrays.copyOf(cuts, n * 2);
+                cuts[n++] = s[0];
+                cuts[n++] = s[1];
+                last = s[0];
+            }
+        }
+        return Arrays.copyOf(cuts, n);
+    }
+}
@@ -0,0 +1,93 @@
+package net.vansen.versa.parser;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The set of dotted paths a projected parse should build, such as {@code server.host} or {@code database}.
+ * <p>
+ * A path selects the value or branch it names, everything inside that branch, and the branches
+ * leading to it. Everything else is stepped over by the scanner without creating {@link String}s,
+ * values or nodes. Comments and blank lines are only kept inside fully selected branches.
+ *
+ * <pre>{@code
+ * Node n = Versa.parse(Path.of("shared.versa"), Set.of("server.host", "database"));
+ * n.getString("server.host"); // parsed
+ * n.getString("server.port"); // null, skipped
+ * }</pre>
+ *
+ * @see VersaParser#parse(ParseProjection)
+ */
+@SuppressWarnings("unused")
+public final class ParseProjection {
+    /**
+     * Branches at this level that a path passes through or ends at.
+     */
+    private final Map<String, ParseProjection> next = new HashMap<>();
+    /**
+     * Names at this level that a path ends at, the only ones selected as values.
+     */
+    private final Set<String> leaves = new HashSet<>();
+    private boolean whole;
+
+    private ParseProjection() {
+    }
+
+    /**
+     * @param paths dotted paths to build
+     * @return projection selecting the given paths
+     */
+    public static @NotNull ParseProjection of(@NotNull String... paths) {
+        return of(List.of(paths));
+    }
+
+    /**
+     * @param paths dotted paths to build
+     * @return projection selecting the given paths
+     */
+    public static @NotNull ParseProjection of(@NotNull Collection<String> paths) {
+        ParseProjection root = new ParseProjection();
+        for (String p : paths) {
+            String[] parts = p.split("\\.");
+            if (parts.length == 0) {
+                root.whole = true;
+                continue;
+            }
+            ParseProjection cur = root;
+            int last = parts.length - 1;
+            for (int i = 0; i < last; i++) cur = cur.next.computeIfAbsent(parts[i], k -> new ParseProjection());
+            cur.leaves.add(parts[last]);
+            cur.next.computeIfAbsent(parts[last], k -> new ParseProjection()).whole = true;
+        }
+        return root;
+    }
+
+    /**
+     * @return true if everything below this level is selected
+     */
+    boolean whole() {
+        return whole;
+    }
+
+    /**
+     * @return projection for the branch {@code name} at this level, or null to skip it
+     */
+    @Nullable ParseProjection branch(@NotNull String name) {
+        return whole ? this : next.get(name);
+    }
+
+    /**
+     * @return true if the value {@code key} at this level is selected; a name only passed through on the way
+     * to a deeper path selects the branch, not a value of that name
+     */
+    boolean has(@NotNull String key) {
+        return whole || leaves.contains(key);
+    }
+}
@@ -0,0 +1,156 @@
+package net.vansen.versa.parser;
+
+import net.vansen.versa.node.Node;
+import net.vansen.versa.node.entry.Entry;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Applies a text edit to a parsed tree by re-parsing only the statements it touches.
+ * The old range {@code [p, ea)} was replaced by the new range {@code [p, eb)}.
+ */
+final class Reparser {
+    private final char[] a, b;
+    private final int p, ea, eb;
+
+    Reparser(char[] a, char[] b, int p, int ea, int eb) {
+        this.a = a;
+        this.b = b;
+        this.p = p;
+        this.ea = ea;
+        this.eb = eb;
+    }
+
+    /**
+     * Re-parses {@code text}, treating the common prefix and suffix it shares with {@code old} as unchanged.
+     *
+     * @see VersaParser#reparse(Node, String, String)
+     */
+    static @NotNull Node reparse(@NotNull Node previous, @NotNull String old, @NotNull String text) {
+        int p = 0, m = Math.min(old.length(), text.length());
+        while (p < m && old.charAt(p) == text.charAt(p)) p++;
+        if (p == old.length() && p == text.length()) return previous;
+
+        int ea = old.length(), eb = text.length();
+        while (ea > p && eb > p && old.charAt(ea - 1) == text.charAt(eb - 1)) {
+            ea--;
+            eb--;
+        }
+        return new Reparser(old.toCharArray(), text.toCharArray(), p, ea, eb).run(previous);
+    }
+
+    /**
+     * Re-parses {@code text} after the range {@code [from, to)} of {@code old} was replaced.
+     *
+     * @see VersaParser#reparse(Node, String, String, int, int)
+     */
+    static @NotNull Node reparse(@NotNull Node previous, @NotNull String old, @NotNull String text, int from, int to) {
+        int end = to + text.length() - old.length();
+        Objects.checkFromToIndex(from, to, old.length());
+        Objects.checkFromToIndex(from, end, text.length());
+        return new Reparser(old.toCharArray(), text.toCharArray(), from, to, end).run(previous);
+    }
+
+    @NotNull Node run(@NotNull Node root) {
+        if (level(root, 0, a.length, 0)) return root;
+        return new VersaParser(b, 0, b.length, 0, true).parse();
+    }
+
+    /**
+     * Applies the edit inside one level of the tree, whose statements span {@code [f, t)} of the old text.
+     * Old and new statements are stepped over side by side, and only until the texts line up again.
+     *
+     * @return false if the edit cannot be confined to this level
+     */
+    private boolean level(Node n, int f, int t, int line) {
+        List<Entry> order = n.load().order;
+        VersaParser old = new VersaParser(a, f, t, line, true);
+        int[] s = new int[3], q = new int[3];
+
+        int k = 0, sk = old.statement(s), qk;
+        if (!fits(order, 0, sk)) return false;
+        while ((qk = old.statement(q)) >= 0 && q[0] <= p) {
+            if (!fits(order, ++k, qk)) return false;
+            int[] tmp = s;
+            s = q;
+            q = tmp;
+            sk = qk;
+        }
+        int j = k + 1;
+        if (qk == -2 || (qk >= 0 && !fits(order, j, qk))) return false;
+
+        int o = s[0], ln = s[1];
+        if (sk == VersaParser.OPEN) {
+            int h = o;
+            while (a[h] != '\n') h++;
+            if (p > h && ea < s[2]) {
+                if (qk >= 0) {
+                    int[] u = new int[3];
+                    VersaParser tail = new VersaParser(a, q[0], t, q[1], true);
+                    if (!rest(tail, u, tail.statement(u), order, j)) return false;
+                } else if (j != order.size()) return false;
+                if (level((Node) order.get(k).o, h + 1, s[2] - 1, ln + 1)) return true;
+            }
+        }
+
+        int nt = t + b.length - a.length, shift = ea - eb, x = -1, rk;
+        VersaParser cur = new VersaParser(b, o, nt, ln, true);
+        int[] r = new int[3];
+        while ((rk = cur.statement(r)) >= 0) {
+            if (r[0] < eb) continue;
+            while (qk >= 0 && q[0] < r[0] + shift) {
+                qk = old.statement(q);
+                j++;
+                if (qk == -2 || (qk >= 0 && !fits(order, j, qk))) return false;
+            }
+            if (qk >= 0 && q[0] == r[0] + shift) {
+                x = r[0];
+                break;
+            }
+        }
+        if (rk == -2) return false;
+
+        if (x == -1) {
+            if (!rest(old, q, qk, order, j)) return false;
+            j = order.size();
+        } else if (!rest(old, q, qk, order, j)) return false;
+
+        Node mid = new VersaParser(b, o, x == -1 ? nt : x - 1, ln, true).parse();
+        splice(n, k, j, mid.order);
+        return true;
+    }
+
+    /**
+     * Steps over the remaining old statements of a level, from statement {@code j} already read into
+     * {@code q}, checking each against the tree. This catches trees edited since they were parsed from
+     * the old text, which must not be spliced into.
+     *
+     * @return true if the rest of the level still matches {@code order}, entry for entry
+     */
+    private static boolean rest(VersaParser old, int[] q, int qk, List<Entry> order, int j) {
+        while (qk >= 0) {
+            if (!fits(order, j, qk)) return false;
+            qk = old.statement(q);
+            j++;
+        }
+        return qk == -1 && j == order.size();
+    }
+
+    private static boolean fits(List<Entry> order, int i, int k) {
+        if (k < 0 || i >= order.size()) return false;
+        return switch (order.get(i).t) {
+            case EMPTY_LINE -> k == VersaParser.EMPTY;
+            case COMMENT -> k == VersaParser.COMMENT;
+            case BRANCH -> k == VersaParser.OPEN;
+            case VALUE -> k == VersaParser.ASSIGN;
+        };
+    }
+
+    private static void splice(Node n, int from, int to, List<Entry> mid) {
+        n.order.subList(from, to).clear();
+        n.order.addAll(from, mid);
+        n.rebuildFromOrder();
+    }
+}
@@ -0,0 +1,183 @@
+package net.vansen.versa.parser;
+
+import net.vansen.versa.node.Node;
+import net.vansen.versa.node.entry.Entry;
+import net.vansen.versa.node.entry.EntryType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Source positions of parsed entries, recorded when set on {@link VersaParser#positions}.
+ * <p>
+ * Entries are numbered in source order: every value, branch, comment line and blank line the parser
+ * reports gets the next index, so for a tree from {@link VersaParser#parse()} the index of an entry is
+ * its position in a pre-order walk of the {@link Node#order} lists. Positions are kept in parallel
+ * {@code int[]} arrays, so {@link Node} and {@link net.vansen.versa.node.Value} carry no extra fields
+ * and parsing without positions costs nothing.
+ * <p>
+ * Offsets count chars from the start of the input, or bytes for UTF-8 input, and an entry ends at the
+ * end of its last line, before the line break. A branch spans up to its closing '}' line. Lines and
+ * columns start at 1, like the line numbers in parse errors.
+ *
+ * <pre>{@code
+ * SourcePositions pos = new SourcePositions();
+ * VersaParser p = new VersaParser(text);
+ * p.positions = pos;
+ * Node root = p.parse();
+ * int line = pos.line(root.getValue("server.port"));
+ * }</pre>
+ */
+@SuppressWarnings("unused")
+public final class SourcePositions {
+    private int[] start = new int[16], end = new int[16], line = new int[16], column = new int[16];
+    private int size;
+    private int[] open = new int[8];
+    private int depth;
+    private Node root;
+    private Map<Object, Integer> index;
+
+    /**
+     * @return number of recorded entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return offset of the first non-blank char of entry {@code i}
+     */
+    public int start(int i) {
+        return start[check(i)];
+    }
+
+    /**
+     * @return offset just past the last char of entry {@code i}
+     */
+    public int end(int i) {
+        return end[check(i)];
+    }
+
+    /**
+     * @return line entry {@code i} starts on
+     */
+    public int line(int i) {
+        return line[check(i)];
+    }
+
+    /**
+     * @return column entry {@code i} starts at
+     */
+    public int column(int i) {
+        return column[check(i)];
+    }
+
+    /**
+     * Finds the index of a {@link net.vansen.versa.node.Value}, branch {@link Node} or
+     * {@link net.vansen.versa.comments.Comment} from the last tree parsed with these positions.
+     * The lookup table is built on first use.
+     *
+     * @return entry index, or -1 if the object was not parsed into that tree
+     */
+    public int indexOf(@NotNull Object o) {
+        if (index == null) {
+            index = new IdentityHashMap<>(size * 2);
+            if (root != null) walk(root, 0);
+        }
+        Integer i = index.get(o);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * @return line the object starts on, or -1 if unknown
+     */
+    public int line(@NotNull Object o) {
+        int i = indexOf(o);
+        return i == -1 ? -1 : line[i];
+    }
+
+    /**
+     * @return column the object starts at, or -1 if unknown
+     */
+    public int column(@NotNull Object o) {
+        int i = indexOf(o);
+        return i == -1 ? -1 : column[i];
+    }
+
+    /**
+     * @return start offset of the object, or -1 if unknown
+     */
+    public int start(@NotNull Object o) {
+        int i = indexOf(o);
+        return i == -1 ? -1 : start[i];
+    }
+
+    /**
+     * @return end offset of the object, or -1 if unknown
+     */
+    public int end(@NotNull Object o) {
+        int i = indexOf(o);
+        return i == -1 ? -1 : end[i];
+    }
+
+    /**
+     * Drops everything recorded, keeping the arrays.
+     */
+    public void clear() {
+        size = depth = 0;
+        root = null;
+        index = null;
+    }
+
+    int add(int s, int e, int ln, int col) {
+        if (size == start.length) {
+            int n = size * 2;
+            start = Arrays.copyOf(start, n);
+            end = Arrays.copyOf(end, n);
+            line = Arrays.copyOf(line, n);
+            column = Arrays.copyOf(column, n);
+        }
+        start[size] = s;
+        end[size] = e;
+        line[size] = ln;
+        column[size] = col;
+        index = null;
+        return size++;
+    }
+
+    void open(int i) {
+        if (depth == open.length) open = Arrays.copyOf(open, depth * 2);
+        open[depth++] = i;
+    }
+
+    void end(int i, int e) {
+        end[i] = e;
+    }
+
+    void close(int e) {
+        if (depth > 0) end[open[--depth]] = e;
+    }
+
+    void root(@Nullable Node n) {
+        root = n;
+        index = null;
+    }
+
+    private int walk(Node n, int i) {
+        for (Entry e : n.order) {
+            if (i >= size) return i;
+            if (e.o != null && e.t != EntryType.EMPTY_LINE) index.put(e.o, i);
+            i++;
+            if (e.t == EntryType.BRANCH) i = walk((Node) e.o, i);
+        }
+        return i;
+    }
+
+    private int check(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Entry " + i + " of " + size);
+        return i;
+    }
+}
@@ -0,0 +1,86 @@
+package net.vansen.versa.parser;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * A bitmap over a text buffer with one bit per char, set where the char is one the grammar
+ * branches on: {@code \n " { } [ ] = : # /}.
+ * <p>
+ * The bitmap is built in one pass, 64 chars per word, without branching on the text.
+ * When {@code jdk.incubator.vector} is available (started with {@code --add-modules jdk.incubator.vector})
+ * the full words are built a vector at a time by {@code VectorIndex}, which is compiled separately and
+ * found reflectively; otherwise, and for the last partial word, a scalar lookup is used.
+ * The parser's line, value and comment scans then jump from one structural char to the next
+ * with {@link Long#numberOfTrailingZeros} instead of looking at every char of every line again.
+ */
+final class StructuralIndex {
+    private static final long LO = bit('\n') | bit('"') | bit('#') | bit('/') | bit(':') | bit('=');
+    private static final long HI = bit('[' - 64) | bit(']' - 64) | bit('{' - 64) | bit('}' - 64);
+
+    private static final MethodHandle VECTOR = vector();
+
+    private final long[] bits;
+
+    /**
+     * Indexes {@code [0, end)} of {@code b}.
+     */
+    StructuralIndex(char[] b, int end) {
+        bits = new long[(end + 63) >>> 6];
+        for (int w = VECTOR != null ? fill(b, end, bits) : 0; w < bits.length; w++) {
+            int base = w << 6, n = Math.min(64, end - base);
+            long m = 0;
+            for (int i = 0; i < n; i++) {
+                char c = b[base + i];
+                long t = c < 64 ? LO : c < 128 ? HI : 0;
+                m |= ((t >>> c) & 1) << i;
+            }
+            bits[w] = m;
+        }
+    }
+
+    /**
+     * @return the first structural position in {@code [i, to)}, or {@code to} if there is none
+     */
+    int next(int i, int to) {
+        if (i >= to) return to;
+        int w = i >>> 6;
+        long m = bits[w] & (-1L << i);
+        while (m == 0) {
+            if (++w << 6 >= to) return to;
+            m = bits[w];
+        }
+        return Math.min((w << 6) + Long.numberOfTrailingZeros(m), to);
+    }
+
+    /**
+     * @return the number of full words {@code VectorIndex.fill} built
+     */
+    private static int fill(char[] b, int end, long[] bits) {
+        try {
+            return (int) VECTOR.invokeExact(b, end, bits);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Vectorized indexing failed", e);
+        }
+    }
+
+    /**
+     * @return {@code VectorIndex.fill}, or null if the module or the class is missing or vectors do not fit a word
+     */
+    private static MethodHandle vector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+        try {
+            Class<?> c = Class.forName("net.vansen.versa.parser.VectorIndex");
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            if (!(boolean) l.findStatic(c, "usable", MethodType.methodType(boolean.class)).invoke()) return null;
+            return l.findStatic(c, "fill", MethodType.methodType(int.class, char[].class, int.class, long[].class));
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private static long bit(int c) {
+        return 1L << c;
+    }
+}
@@ -0,0 +1,89 @@
+package net.vansen.versa.parser;
+
+import net.vansen.versa.comments.Comment;
+import net.vansen.versa.node.Node;
+import net.vansen.versa.node.Value;
+import net.vansen.versa.node.entry.Entry;
+import net.vansen.versa.node.entry.EntryType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+/**
+ * {@link VersaHandler} that builds the {@link Node} tree, keeping values, branches,
+ * comments and blank lines in their original order.
+ */
+@SuppressWarnings("unused")
+public class TreeBuilder implements VersaHandler {
+    private Node root = new Node();
+    private final Deque<Node> stack = new ArrayDeque<>();
+
+    public TreeBuilder() {
+        stack.push(root);
+    }
+
+    /**
+     * Starts over with a new, empty root, keeping the stack for reuse.
+     *
+     * @return this builder
+     */
+    TreeBuilder reset() {
+        root = new Node();
+        stack.clear();
+        stack.push(root);
+        return this;
+    }
+
+    /**
+     * @return root node of everything received so far
+     */
+    public @NotNull Node root() {
+        return root;
+    }
+
+    @Override
+    public void startBranch(@NotNull String name, @Nullable Comment comment) {
+        Node n = new Node();
+        n.name = name;
+        if (comment != null) n.inlineComments.add(comment);
+        stack.peek().children.add(n);
+        stack.peek().order.add(new Entry(EntryType.BRANCH, n));
+        stack.push(n);
+    }
+
+    /**
+     * Adds a branch whose body is parsed on first access.
+     */
+    void lazyBranch(@NotNull String name, @Nullable Comment start, @Nullable Comment end, @NotNull Supplier<Node> body) {
+        Node n = new Node(name, body);
+        if (start != null) n.inlineComments.add(start);
+        if (end != null) n.inlineComments.add(end);
+        stack.peek().children.add(n);
+        stack.peek().order.add(new Entry(EntryType.BRANCH, n));
+    }
+
+    @Override
+    public void endBranch(@Nullable Comment comment) {
+        Node popped = stack.pop();
+        if (comment != null) popped.inlineComments.add(comment);
+    }
+
+    @Override
+    public void value(@NotNull Value value) {
+        stack.peek().values.put(value.name, value);
+        stack.peek().order.add(new Entry(EntryType.VALUE, value));
+    }
+
+    @Override
+    public void comment(@NotNull Comment comment) {
+        stack.peek().order.add(new Entry(EntryType.COMMENT, comment));
+    }
+
+    @Override
+    public void emptyLine() {
+        stack.peek().order.add(new Entry(EntryType.EMPTY_LINE, null));
+    }
+}
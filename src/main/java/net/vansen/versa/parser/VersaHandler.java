@@ -0,0 +1,60 @@
+package net.vansen.versa.parser;
+
+import net.vansen.versa.comments.Comment;
+import net.vansen.versa.node.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Receives parse events from {@link VersaParser#parse(VersaHandler)} in source order.
+ * <p>
+ * This is the streaming counterpart of the {@link net.vansen.versa.node.Node} tree: nothing is kept
+ * between events, so a handler that only picks out a few values (or copies them into its own
+ * structures) never pays for the full tree. {@link TreeBuilder} is the implementation behind
+ * {@link VersaParser#parse()}.
+ * <p>
+ * All methods default to doing nothing, so handlers only override what they need.
+ */
+@SuppressWarnings("unused")
+public interface VersaHandler {
+
+    /**
+     * A branch {@code name {} was opened.
+     *
+     * @param name    branch name
+     * @param comment inline comment after the '{', or null
+     */
+    default void startBranch(@NotNull String name, @Nullable Comment comment) {
+    }
+
+    /**
+     * The innermost open branch was closed with '}'.
+     *
+     * @param comment inline comment after the '}', or null
+     */
+    default void endBranch(@Nullable Comment comment) {
+    }
+
+    /**
+     * A key/value pair was read. {@link Value#name}, {@link Value#assign} and any inline
+     * comment in {@link Value#getComments()} are already filled in.
+     *
+     * @param value parsed value
+     */
+    default void value(@NotNull Value value) {
+    }
+
+    /**
+     * A standalone comment line was read.
+     *
+     * @param comment the comment
+     */
+    default void comment(@NotNull Comment comment) {
+    }
+
+    /**
+     * A blank line was read.
+     */
+    default void emptyLine() {
+    }
+}
@@ -5,16 +5,27 @@ import net.vansen.versa.comments.CommentType;
 import net.vansen.versa.logger.VersaLog;
 import net.vansen.versa.node.Node;
 import net.vansen.versa.node.Value;
-import net.vansen.versa.node.entry.Entry;
-import net.vansen.versa.node.entry.EntryType;
+import net.vansen.versa.node.value.PackedList;
 import net.vansen.versa.node.value.ValueType;
+import net.vansen.versa.utils.Numbers;
+import net.vansen.versa.utils.StringPool;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 
 /**
@@ -26,17 +37,84 @@ import java.util.function.Consumer;
  * and doing so will cause the first key to be parsed normally while everything after
  * it becomes part of the value string. Each value/branch entry must begin on its own line.
  * <p>
+ * Input is scanned once as a {@code char[]} using an offset cursor. Each line is classified
+ * in a single pass (branch, close, assignment, inline comment and bracket balance), and only
+ * keys and final values are turned into {@link String}s.
+ * <p>
+ * When created from a {@link Reader}, the parser reads through a fixed-size window instead of
+ * loading the whole text. The window only grows when a single statement (such as a long multi-line
+ * list) does not fit, so peak memory is the parsed tree plus roughly one window of text.
+ * <p>
+ * When created from UTF-8 bytes, the bytes are scanned as they are, one byte per char, since every
+ * character the grammar branches on is ASCII. Only the keys, values and comments that are kept are
+ * decoded, and ASCII ones are copied straight from the buffer.
+ * <p>
+ * Inputs of a megabyte or more that are fully in memory are first indexed by a {@link StructuralIndex},
+ * so the line, value and comment scans jump between structural characters instead of visiting every char.
+ * <p>
+ * {@link #parse(VersaHandler)} drives the same grammar as a stream of events, and {@link #parse()}
+ * is just that stream fed into a {@link TreeBuilder}.
+ * <p>
  * When {@link #strict} is enabled, invalid syntax throws an exception.
  * When disabled, errors are logged using {@link #errorHandler} and parsing continues.
  */
 
 @SuppressWarnings({"unused", "DataFlowIssue"})
 public class VersaParser {
-    private final String[] lines;
-    private final Deque<Node> stack = new ArrayDeque<>();
+    private static final int WINDOW = 8192;
+    private static final int INDEX = 1 << 20;
+    static final int EMPTY = 0, COMMENT = 1, OPEN = 2, CLOSE = 3, ASSIGN = 4, JUNK = 5;
+
+    private char[] buf;
+    private int end;
+    private Reader in;
+    private final Deque<String> open = new ArrayDeque<>();
+    private TreeBuilder lazy;
+    private boolean shared;
+    private boolean raw;
+    private CharsetDecoder dec;
+    private StructuralIndex idx;
+    private TreeBuilder tree;
+    private ParseProjection want;
+    private final Deque<ParseProjection> wants = new ArrayDeque<>();
     public Consumer<String> errorHandler = System.out::println;
+
+    /**
+     * Pool for keys, branch names and string values, or null to allocate fresh strings.
+     * Defaults to {@link StringPool#global()} and is inherited by nested parses.
+     */
+    public StringPool pool = StringPool.global();
+
+    /**
+     * Receives the source position of every parsed entry, or null (the default) to not track positions.
+     * It is cleared at the start of each parse. Lazy and parallel parses run eagerly and sequentially while set.
+     */
+    public SourcePositions positions;
     private boolean strict = true;
     private int ln;
+    private int pos;
+    /**
+     * Bounds of the current line in {@link #buf}, without its line break.
+     */
+    private int lineStart, lineEnd;
+    /**
+     * Start of the text a streaming refill must keep in the window.
+     */
+    private int keepFrom;
+    /**
+     * Offset of {@code buf[0]} in the whole input, which moves as a streaming window slides.
+     */
+    private int bufOffset;
+    /**
+     * First non-blank column of the current line and, for branches and assignments, its '{', '=' or ':'.
+     */
+    private int stmtStart, delimAt;
+    /**
+     * Extent of the value being read, see {@link #valueBounds}: where it starts, where its text on the first
+     * line ends, where its following lines start, its inline comment or -1, and the lines it spans after the first.
+     */
+    private int valueStart, firstLineEnd, restStart, commentAt, extraLines;
+    private final Value scratch = new Value();
 
     /**
      * Creates a new Versa parser with strict mode ON by default.
@@ -44,7 +122,8 @@ public class VersaParser {
      * @param s configuration text
      */
     public VersaParser(@NotNull String s) {
-        this.lines = split(s);
+        this.buf = s.toCharArray();
+        this.end = buf.length;
         ln = 0;
     }
 
@@ -59,19 +138,133 @@ public class VersaParser {
         this.strict = strict;
     }
 
-    private static String[] split(String s) {
-        int len = s.length(), count = 1;
-        for (int i = 0; i < len; i++) if (s.charAt(i) == '\n') count++;
-        String[] r = new String[count];
-        int p = 0, start = 0;
-        for (int i = 0; i < len; i++) {
-            if (s.charAt(i) == '\n') {
-                r[p++] = s.substring(start, i);
-                start = i + 1;
-            }
+    /**
+     * Creates a streaming Versa parser with strict mode ON by default.
+     * The reader is consumed incrementally and is not closed by the parser.
+     *
+     * @param in source of configuration text
+     */
+    public VersaParser(@NotNull Reader in) {
+        this.buf = new char[WINDOW];
+        this.in = in;
+    }
+
+    /**
+     * Creates a streaming Versa parser with optional strict behavior.
+     *
+     * @param in     source of configuration text
+     * @param strict whether to throw errors instead of logging them
+     */
+    public VersaParser(@NotNull Reader in, boolean strict) {
+        this(in);
+        this.strict = strict;
+    }
+
+    /**
+     * Creates a Versa parser over UTF-8 bytes with strict mode ON by default.
+     *
+     * @param utf8 configuration text encoded as UTF-8
+     */
+    public VersaParser(byte @NotNull [] utf8) {
+        this.buf = new char[utf8.length];
+        for (int i = 0; i < utf8.length; i++) buf[i] = (char) (utf8[i] & 0xFF);
+        this.end = buf.length;
+        this.raw = true;
+    }
+
+    /**
+     * Creates a Versa parser over UTF-8 bytes with optional strict behavior.
+     *
+     * @param utf8   configuration text encoded as UTF-8
+     * @param strict whether to throw errors instead of logging them
+     */
+    public VersaParser(byte @NotNull [] utf8, boolean strict) {
+        this(utf8);
+        this.strict = strict;
+    }
+
+    /**
+     * Creates a streaming Versa parser over the remaining UTF-8 bytes of a buffer, with strict mode ON by default.
+     * The buffer's position is advanced as it is read.
+     *
+     * @param utf8 configuration text encoded as UTF-8, such as a mapped file
+     */
+    public VersaParser(@NotNull ByteBuffer utf8) {
+        this(new ByteSource(utf8));
+        this.raw = true;
+    }
+
+    /**
+     * Creates a streaming Versa parser over the remaining UTF-8 bytes of a buffer, with optional strict behavior.
+     *
+     * @param utf8   configuration text encoded as UTF-8, such as a mapped file
+     * @param strict whether to throw errors instead of logging them
+     */
+    public VersaParser(@NotNull ByteBuffer utf8, boolean strict) {
+        this(utf8);
+        this.strict = strict;
+    }
+
+    /**
+     * Creates a streaming Versa parser over a UTF-8 channel with strict mode ON by default.
+     * The channel is consumed incrementally and is not closed by the parser.
+     *
+     * @param ch source of configuration text encoded as UTF-8
+     */
+    public VersaParser(@NotNull ReadableByteChannel ch) {
+        this(new ByteSource(ch, WINDOW));
+        this.raw = true;
+    }
+
+    /**
+     * Creates a streaming Versa parser over a UTF-8 channel with optional strict behavior.
+     *
+     * @param ch     source of configuration text encoded as UTF-8
+     * @param strict whether to throw errors instead of logging them
+     */
+    public VersaParser(@NotNull ReadableByteChannel ch, boolean strict) {
+        this(ch);
+        this.strict = strict;
+    }
+
+    VersaParser(char[] buf, int from, int to, int line, boolean strict) {
+        this.buf = buf;
+        this.shared = true;
+        this.pos = from;
+        this.end = to;
+        this.ln = line;
+        this.strict = strict;
+    }
+
+    /**
+     * Points this parser at new text so it can be used again, keeping its buffer and branch stacks.
+     * The strict flag, {@link #errorHandler} and {@link #pool} stay as they are.
+     * <p>
+     * The buffer is reused when it is large enough, unless branches of an earlier
+     * {@link #parseLazy()} may still read from it.
+     *
+     * @param s configuration text
+     * @return this parser
+     */
+    public @NotNull VersaParser reset(@NotNull CharSequence s) {
+        int n = s.length();
+        if (shared || buf.length < n) {
+            buf = new char[Math.max(n, 64)];
+            shared = false;
         }
-        r[p] = start < len ? s.substring(start) : "";
-        return r;
+        if (s instanceof String) ((String) s).getChars(0, n, buf, 0);
+        else for (int i = 0; i < n; i++) buf[i] = s.charAt(i);
+
+        end = n;
+        in = null;
+        raw = false;
+        idx = null;
+        pos = ln = lineStart = lineEnd = keepFrom = bufOffset = 0;
+        open.clear();
+        lazy = null;
+        want = null;
+        wants.clear();
+        return this;
     }
 
     /**
@@ -80,100 +273,470 @@ public class VersaParser {
      * @return parsed configuration tree
      */
     public @NotNull Node parse() {
-        Node root = new Node();
-        stack.push(root);
+        TreeBuilder t = tree == null ? tree = new TreeBuilder() : tree.reset();
+        parse(t);
+        if (positions != null) positions.root(t.root());
+        return t.root();
+    }
+
+    /**
+     * Parses the input, building only the paths selected by the projection and the branches leading to them.
+     * Unselected values and branches are stepped over without being parsed, so syntax errors inside them
+     * are not reported.
+     *
+     * @param p paths to build
+     * @return partial configuration tree
+     */
+    public @NotNull Node parse(@NotNull ParseProjection p) {
+        TreeBuilder t = new TreeBuilder();
+        parse(t, p);
+        if (positions != null) positions.root(t.root());
+        return t.root();
+    }
 
-        while (ln < lines.length) {
-            String raw = lines[ln];
-            int col = 0;
-            while (col < raw.length() && (raw.charAt(col) == ' ' || raw.charAt(col) == '\t')) col++;
-            String rest = raw.substring(col);
+    /**
+     * Parses the input and reports only the statements selected by the projection to the handler.
+     *
+     * @param h receiver of parse events
+     * @param p paths to report
+     * @see #parse(ParseProjection)
+     */
+    public void parse(@NotNull VersaHandler h, @NotNull ParseProjection p) {
+        want = p;
+        try {
+            parse(h);
+        } finally {
+            want = null;
+            wants.clear();
+        }
+    }
 
-            if (rest.isEmpty()) {
-                stack.peek().order.add(new Entry(EntryType.EMPTY_LINE, null));
+    /**
+     * Parses the input and reports each statement to the handler instead of building a tree.
+     * Grammar, error handling and line numbers are identical to {@link #parse()}.
+     *
+     * @param h receiver of parse events
+     */
+    public void parse(@NotNull VersaHandler h) {
+        if (idx == null && in == null && end - pos >= INDEX) idx = new StructuralIndex(buf, end);
+        if (positions != null) positions.clear();
+        while (true) {
+            keepFrom = pos;
+            if (!nextLine()) break;
+            int k = classify(), s = stmtStart;
+
+            if (k == EMPTY) {
+                if (want == null || want.whole()) {
+                    if (positions != null) record(lineStart);
+                    h.emptyLine();
+                }
                 ln++;
                 continue;
             }
 
-            if (rest.startsWith("//") || rest.startsWith("#")) {
-                boolean slash = rest.startsWith("//");
-                String text = slash ? rest.substring(2) : rest.substring(1);
-                stack.peek().order.add(new Entry(
-                        EntryType.COMMENT,
-                        new Comment(CommentType.COMMENT_LINE, text, slash)
-                ));
+            if (k == COMMENT) {
+                if (want != null && !want.whole()) {
+                    ln++;
+                    continue;
+                }
+                boolean slash = buf[s] == '/';
+                String text = str(buf, s + (slash ? 2 : 1), lineEnd);
+                if (positions != null) record(s);
+                h.comment(new Comment(CommentType.COMMENT_LINE, text, slash));
                 ln++;
                 continue;
             }
 
-            int braceIdx = indexOfNonQuoted(rest, '{');
-            int eqIdx = indexOfNonQuoted(rest, '=');
-            int colonIdx = indexOfNonQuoted(rest, ':');
-
-            int assignIdx = -1;
-            char assign = '=';
-
-            if (eqIdx != -1 && colonIdx != -1) {
-                assignIdx = Math.min(eqIdx, colonIdx);
-                assign = (eqIdx < colonIdx) ? '=' : ':';
-            } else if (eqIdx != -1) {
-                assignIdx = eqIdx;
-                assign = '=';
-            } else if (colonIdx != -1) {
-                assignIdx = colonIdx;
-                assign = ':';
-            }
-
-            if (braceIdx != -1 && (assignIdx == -1 || braceIdx < assignIdx)) {
-                String name = rest.substring(0, braceIdx).trim();
-                if (name.isEmpty()) fail("Missing branch name before '{'. Example: section {", rest);
-
-                Node n = new Node();
-                n.name = name;
-                stack.peek().children.add(n);
-                stack.peek().order.add(new Entry(EntryType.BRANCH, n));
-                stack.push(n);
-
-                addInlineComment(rest, braceIdx + 1, n, CommentType.START_BRANCH);
+            if (k == OPEN) {
+                String name = trimmed(buf, s, delimAt);
+                if (name.isEmpty()) fail("Missing branch name before '{'. Example: section {", s);
+
+                if (want != null) {
+                    ParseProjection w = want.branch(name);
+                    if (w == null) {
+                        if (!skipBranch()) error("Reached end of file but '" + name + "' was never closed with '}'");
+                        ln++;
+                        continue;
+                    }
+                    wants.push(want);
+                    want = w;
+                }
+                Comment sc = inlineComment(delimAt + 1, lineEnd, CommentType.START_BRANCH);
+                if (lazy != null && defer(name, sc)) {
+                    ln++;
+                    continue;
+                }
+                open.push(name);
+                if (positions != null) positions.open(record(s));
+                h.startBranch(name, sc);
                 ln++;
                 continue;
             }
 
-            if (rest.startsWith("}")) {
-                if (stack.size() == 1) fail("Unexpected '}' — no branch is open to close", rest);
-                Node popped = stack.pop();
-                addInlineComment(rest, 1, popped, CommentType.END_BRANCH);
+            if (k == CLOSE) {
+                if (open.isEmpty()) fail("Unexpected '}' — no branch is open to close", s);
+                open.poll();
+                if (want != null && !wants.isEmpty()) want = wants.pop();
+                if (positions != null) positions.close(bufOffset + lineEnd);
+                h.endBranch(inlineComment(s + 1, lineEnd, CommentType.END_BRANCH));
                 ln++;
                 continue;
             }
 
-            if (assignIdx != -1) {
-                String key = rest.substring(0, assignIdx).trim();
-                String after = rest.substring(assignIdx + 1).trim();
+            if (k == ASSIGN) {
+                String key = trimmed(buf, s, delimAt);
+                int as = skipWs(buf, delimAt + 1, lineEnd), ae = trimEnd(buf, as, lineEnd);
 
-                if (key.isEmpty()) fail("Missing key before assignment", rest);
-                if (after.isEmpty()) fail("Missing value after assignment. Example: " + key + " = 10", rest);
+                if (key.isEmpty()) fail("Missing key before assignment", s);
+                if (as == ae) fail("Missing value after assignment. Example: " + key + " = 10", s);
 
-                Value v = parseValueFromLines(after);
+                if (want != null && !want.has(key)) {
+                    if (!skipValue()) fail("Value never closed -> missing ']' or '}' or closing quote", joined(lineEnd));
+                    ln++;
+                    continue;
+                }
+
+                char assign = buf[delimAt];
+                Comment c = inlineComment(delimAt + 1, lineEnd, CommentType.INLINE_VALUE);
+                int p = positions == null ? -1 : record(s);
+                Value v = parseValueFromLines(as, ae);
+                if (p != -1) positions.end(p, bufOffset + lineEnd);
                 v.name = key;
                 v.assign = assign;
 
-                addInlineComment(rest, assignIdx + 1, v, CommentType.INLINE_VALUE);
+                if (c != null) v.addComment(c);
 
-                stack.peek().values.put(key, v);
-                stack.peek().order.add(new Entry(EntryType.VALUE, v));
+                h.value(v);
                 ln++;
                 continue;
             }
 
-            error(rest);
+            error(str(buf, s, lineEnd));
+            ln++;
+        }
+
+        if (!open.isEmpty())
+            error("Reached end of file but '" + open.peek() + "' was never closed with '}'");
+    }
+
+    /**
+     * Parses the input like {@link #parse()}, but leaves every branch body unparsed until it is first
+     * used through a {@link Node} method or {@link Node#load()}.
+     * <p>
+     * Only the top level is parsed up front. Each branch is skipped with a light scan that follows
+     * the same quote, nesting and multi-line value rules, and its source range is kept on the node.
+     * Bodies are themselves parsed lazily, so touching {@code a.b.c} only builds the branches on that path.
+     * The input text stays referenced until all branches have been loaded, and a streaming parser
+     * reads all of its input first.
+     * <p>
+     * Syntax errors inside a branch surface when that branch is loaded. If a branch is never closed,
+     * parsing continues eagerly from that branch so the usual error is reported.
+     *
+     * @return root of the lazily parsed tree
+     */
+    public @NotNull Node parseLazy() {
+        return LazyParse.parse(this);
+    }
+
+    /**
+     * Reads the rest of a streaming input into the buffer, so that branches can be parsed from it later.
+     */
+    void readAll() {
+        if (in == null) return;
+        keepFrom = pos;
+        while (fill()) ;
+    }
+
+    /**
+     * Makes the next parse hand each complete branch to {@code t} unparsed, see {@link TreeBuilder#lazyBranch}.
+     * The buffer is marked as shared so that {@link #reset} does not overwrite it under those branches.
+     */
+    void deferBranches(@NotNull TreeBuilder t) {
+        lazy = t;
+        shared = true;
+    }
+
+    /**
+     * Hands the branch opened on the current line to {@link #lazy} unparsed, leaving the parser on its '}' line.
+     * A branch that is never closed is not deferred: the parser goes back to its first line and stops deferring,
+     * so the rest is parsed eagerly and the usual error is reported.
+     *
+     * @return true if the branch was deferred
+     */
+    private boolean defer(String name, Comment sc) {
+        int from = pos, line = ln + 1, ln0 = ln;
+        if (!skipBranch()) {
+            pos = from;
+            ln = ln0;
+            lazy = null;
+            return false;
+        }
+        int to = lineStart - 1;
+        Comment ec = inlineComment(stmtStart + 1, lineEnd, CommentType.END_BRANCH);
+        lazy.lazyBranch(name, sc, ec, () -> sub(buf, from, to, line, strict).parseLazy());
+        return true;
+    }
+
+    /**
+     * Steps over the next statement at the outermost level, including the whole body of a branch.
+     *
+     * @param out receives the start offset, the line number and, for branches, the start of the closing '}' line
+     * @return the statement kind, -1 at the end of the input, or -2 if the branch nesting is unbalanced
+     */
+    int statement(int[] out) {
+        if (!nextLine()) return -1;
+        int k = classify();
+        out[0] = lineStart;
+        out[1] = ln;
+        out[2] = -1;
+        if (k == CLOSE || (k == ASSIGN && !skipValue())) return -2;
+        if (k == OPEN) {
+            if (!skipBranch()) return -2;
+            out[2] = lineStart;
+        }
+        ln++;
+        return k;
+    }
+
+    /**
+     * Re-parses {@code text} after an edit, reusing the unchanged parts of {@code previous}.
+     * The common prefix and suffix of both texts are treated as unchanged.
+     *
+     * @see #reparse(Node, String, String, int, int)
+     */
+    public static @NotNull Node reparse(@NotNull Node previous, @NotNull String old, @NotNull String text) {
+        return Reparser.reparse(previous, old, text);
+    }
+
+    /**
+     * Re-parses {@code text} after the range {@code [from, to)} of {@code old} was replaced,
+     * reusing the unchanged parts of {@code previous}.
+     * <p>
+     * Only the innermost branch that fully contains the edit is re-parsed, and within it only the
+     * statements from the edited one up to the first statement that lines up with the old text again.
+     * The new entries are spliced into {@code previous} in place, so untouched branches keep their
+     * identity. When the edit changes the structure around it (for example by adding an unclosed '{'),
+     * or {@code previous} no longer matches {@code old}, the whole text is parsed instead.
+     *
+     * @param previous tree parsed from {@code old}, in strict mode
+     * @param old      text {@code previous} was parsed from
+     * @param text     text after the edit
+     * @param from     start of the replaced range in {@code old}
+     * @param to       end of the replaced range in {@code old}
+     * @return {@code previous} with the edit applied, or a freshly parsed tree
+     * @throws IndexOutOfBoundsException if the range does not fit in {@code old}, or its replacement in {@code text}
+     */
+    public static @NotNull Node reparse(@NotNull Node previous, @NotNull String old, @NotNull String text, int from, int to) {
+        return Reparser.reparse(previous, old, text, from, to);
+    }
+
+    /**
+     * Skips to the '}' closing the branch opened on the current line, counting lines as the parser would.
+     *
+     * @return false if the input ended first
+     */
+    private boolean skipBranch() {
+        int depth = 0;
+        while (true) {
             ln++;
+            keepFrom = pos;
+            if (!nextLine()) return false;
+            int k = classify();
+            if (k == OPEN) depth++;
+            else if (k == CLOSE && depth-- == 0) return true;
+            else if (k == ASSIGN && !skipValue()) return false;
         }
+    }
 
-        if (stack.size() > 1)
-            error("Reached end of file but '" + stack.peek().name + "' was never closed with '}'");
+    /**
+     * Steps over the value of the assignment on the current line.
+     *
+     * @return false if the input ended before the value was closed
+     */
+    private boolean skipValue() {
+        int as = skipWs(buf, delimAt + 1, lineEnd);
+        if (!valueBounds(as, trimEnd(buf, as, lineEnd))) return false;
+        ln += extraLines;
+        return true;
+    }
 
-        return root;
+    /**
+     * Parses the input like {@link #parse()}, using the common {@link ForkJoinPool}.
+     *
+     * @return parsed configuration tree
+     * @see #parseParallel(ForkJoinPool)
+     */
+    public @NotNull Node parseParallel() {
+        return parseParallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses the input like {@link #parse()}, but splits it into slices of top-level statements
+     * and parses the slices concurrently on the given pool.
+     * <p>
+     * A cheap prescan first walks the text with the same line rules as the parser (quotes, branch
+     * depth and multi-line values) to find where top-level statements start. The parsed slices are
+     * stitched back into one root in source order, so the result, including comments, empty lines
+     * and error messages, is the same as a sequential parse.
+     * <p>
+     * Small inputs, single-threaded pools, streaming parsers and inputs whose nesting is broken
+     * are parsed sequentially.
+     *
+     * @param pool pool to run the slices on
+     * @return parsed configuration tree
+     */
+    public @NotNull Node parseParallel(@NotNull ForkJoinPool pool) {
+        return ParallelParse.parse(this, pool);
+    }
+
+    /**
+     * @return true if this parser reads from a stream rather than a buffer holding the whole input
+     */
+    boolean streaming() {
+        return in != null;
+    }
+
+    /**
+     * @return offset in the buffer where this parser continues
+     */
+    int position() {
+        return pos;
+    }
+
+    /**
+     * @return end of the input in the buffer
+     */
+    int end() {
+        return end;
+    }
+
+    /**
+     * @return zero-based line number this parser continues at
+     */
+    int line() {
+        return ln;
+    }
+
+    /**
+     * Creates a parser over {@code [from, to)} of this parser's buffer that shares its settings,
+     * starting at the given zero-based line.
+     */
+    @NotNull VersaParser slice(int from, int to, int line) {
+        return sub(buf, from, to, line, strict);
+    }
+
+    /**
+     * Classifies the current line, leaving its first non-blank column in {@link #stmtStart}
+     * and, for branches and assignments, the structural character in {@link #delimAt}.
+     */
+    private int classify() {
+        int s = lineStart;
+        while (s < lineEnd && (buf[s] == ' ' || buf[s] == '\t')) s++;
+        stmtStart = s;
+        if (s == lineEnd) return EMPTY;
+
+        char c0 = buf[s];
+        if (c0 == '#' || (c0 == '/' && s + 1 < lineEnd && buf[s + 1] == '/')) return COMMENT;
+
+        delimAt = -1;
+        boolean inQ = false;
+        for (int i = skip(s, lineEnd); i < lineEnd; i = skip(i + 1, lineEnd)) {
+            char c = buf[i];
+            if (c == '"' && !(i > s && buf[i - 1] == '\\')) inQ = !inQ;
+            if (!inQ && (c == '{' || c == '=' || c == ':')) {
+                delimAt = i;
+                break;
+            }
+        }
+
+        if (delimAt != -1 && buf[delimAt] == '{') return OPEN;
+        if (c0 == '}') return CLOSE;
+        return delimAt != -1 ? ASSIGN : JUNK;
+    }
+
+    /**
+     * Creates a parser over a range of {@code b} that shares this parser's settings.
+     */
+    private VersaParser sub(char[] b, int from, int to, int line, boolean strict) {
+        VersaParser p = new VersaParser(b, from, to, line, strict);
+        p.raw = raw && b == buf;
+        if (b == buf) p.idx = idx;
+        p.errorHandler = errorHandler;
+        p.pool = pool;
+        return p;
+    }
+
+    /**
+     * @return the next position in {@code [i, t)} of {@link #buf} that may hold a structural char, or {@code t}
+     */
+    private int skip(int i, int t) {
+        return idx == null ? i : idx.next(i, t);
+    }
+
+    /**
+     * Records an entry starting at {@code s} on the current line and ending with it.
+     *
+     * @return the entry's index in {@link #positions}
+     */
+    private int record(int s) {
+        return positions.add(bufOffset + s, bufOffset + lineEnd, ln + 1, s - lineStart + 1);
+    }
+
+    private boolean nextLine() {
+        if (pos > end && !fill()) return false;
+        int i = pos;
+        if (idx != null) {
+            while ((i = idx.next(i, end)) < end && buf[i] != '\n') i++;
+        } else while (true) {
+            while (i < end && buf[i] != '\n') i++;
+            if (i < end) break;
+            int off = i - pos;
+            boolean more = fill();
+            i = pos + off;
+            if (!more) break;
+        }
+        lineStart = pos;
+        lineEnd = i;
+        pos = i + 1;
+        return true;
+    }
+
+    /**
+     * Reads more text into the window, first dropping everything before {@link #keepFrom}.
+     * The value offsets {@link #valueStart}, {@link #firstLineEnd}, {@link #restStart} and
+     * {@link #commentAt} are shifted along.
+     *
+     * @return false once the input is exhausted
+     */
+    private boolean fill() {
+        if (in == null) return false;
+        if (keepFrom > 0) {
+            System.arraycopy(buf, keepFrom, buf, 0, end - keepFrom);
+            bufOffset += keepFrom;
+            end -= keepFrom;
+            pos -= keepFrom;
+            valueStart -= keepFrom;
+            firstLineEnd -= keepFrom;
+            restStart -= keepFrom;
+            if (commentAt != -1) commentAt -= keepFrom;
+            keepFrom = 0;
+        }
+        if (end == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+        try {
+            int n = in.read(buf, end, buf.length - end);
+            if (n < 0) {
+                in = null;
+                return false;
+            }
+            end += n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void fail(String msg, int s) {
+        fail(msg, str(buf, s, lineEnd));
     }
 
     private void fail(String msg, String line) {
@@ -188,23 +751,53 @@ public class VersaParser {
         VersaLog.warn("Parser", m);
     }
 
-    private Value parseValueFromLines(String start) {
-        StringBuilder acc = new StringBuilder(start);
-        if (start.isEmpty()) {
+    /**
+     * Reads a value that starts at {@code [as, ae)} on the current line and may continue
+     * over following lines until quotes, braces and brackets are balanced.
+     */
+    private Value parseValueFromLines(int as, int ae) {
+        if (!valueBounds(as, ae))
+            fail("Value never closed -> missing ']' or '}' or closing quote", joined(lineEnd));
+        ln += extraLines;
+
+        int t = commentAt == -1 ? lineEnd : commentAt;
+        if (firstLineEnd == restStart || t <= restStart) return parseToken(buf, valueStart, trimEnd(buf, valueStart, t));
+
+        char[] acc = joined(t).toCharArray();
+        return parseToken(acc, 0, trimEnd(acc, 0, acc.length));
+    }
+
+    /**
+     * Finds the extent of a value starting at {@code [as, ae)}, leaving the current line on its last line.
+     * Sets {@link #valueStart}, {@link #firstLineEnd}, {@link #restStart}, {@link #commentAt} and {@link #extraLines}.
+     *
+     * @return false if the input ended before the value was closed
+     */
+    private boolean valueBounds(int as, int ae) {
+        restStart = lineEnd;
+        extraLines = 0;
+        commentAt = -1;
+        if (as == ae) {
             ln++;
-            if (ln < lines.length) acc.append("\n").append(lines[ln]);
+            if (!nextLine()) {
+                valueStart = firstLineEnd = lineEnd;
+                return true;
+            }
+            as = skipWs(buf, lineStart, lineEnd);
+            ae = restStart = lineEnd;
         }
+        valueStart = as;
+        firstLineEnd = ae;
 
         int br = 0, sq = 0;
         boolean inQ = false;
-        int l = ln;
+        int from = as;
 
         while (true) {
-            String line = (l == ln) ? acc.toString() : lines[l];
-            for (int i = 0; i < line.length(); i++) {
-                char c = line.charAt(i);
+            for (int i = skip(from, lineEnd); i < lineEnd; i = skip(i + 1, lineEnd)) {
+                char c = buf[i];
 
-                if (c == '"' && !(i > 0 && line.charAt(i - 1) == '\\'))
+                if (c == '"' && !(i > valueStart && buf[i - 1] == '\\'))
                     inQ = !inQ;
 
                 if (!inQ) {
@@ -212,89 +805,91 @@ public class VersaParser {
                     else if (c == '}') br--;
                     else if (c == '[') sq++;
                     else if (c == ']') sq--;
+                    else if (commentAt == -1 && (c == '#' || (c == '/' && i + 1 < lineEnd && buf[i + 1] == '/'))) commentAt = i;
                 }
             }
 
-            if (!inQ && br <= 0 && sq <= 0) break;
-
-            l++;
-            if (l >= lines.length) {
-                fail("Value never closed -> missing ']' or '}' or closing quote", acc.toString());
-                break;
-            }
-
-            acc.append("\n").append(lines[l]);
+            if (!inQ && br <= 0 && sq <= 0) return true;
+            extraLines++;
+            if (!nextLine()) return false;
+            from = lineStart;
         }
+    }
 
-        if (l > ln) ln = l;
-        String token = acc.toString().trim();
-        return parseValueFromString(token);
+    /**
+     * Text of a multi-line value, with the first line's trailing whitespace dropped.
+     */
+    private String joined(int t) {
+        if (firstLineEnd == restStart) return str(buf, valueStart, t);
+        return str(buf, valueStart, firstLineEnd) + str(buf, restStart, t);
     }
 
-    private Value parseValueFromString(String token) {
-        token = stripInlineComment(token).trim();
+    private Value parseValueFromString(char[] b, int f, int t) {
+        t = trimEnd(b, f, cutComment(b, f, t));
+        return parseToken(b, skipWs(b, f, t), t);
+    }
+
+    private Value parseToken(char[] b, int f, int t) {
+        if (raw && b == buf && !ascii(b, f, t)) {
+            char[] d = utf8(b, f, t).toCharArray();
+            return parseToken(d, 0, d.length);
+        }
         Value v = new Value();
 
-        if (token.startsWith("\"")) {
-            if (!token.endsWith("\"")) fail("Missing closing quote", token);
+        if (f < t && b[f] == '"') {
+            if (t - f < 2 || b[t - 1] != '"') fail("Missing closing quote", new String(b, f, t - f));
             v.type = ValueType.STRING;
-            v.sv = token.substring(1, token.length() - 1).replace("\\n", "\n");
+            v.sv = unescape(b, f + 1, Math.max(f + 1, t - 1));
             return v;
         }
 
-        if (token.startsWith("[")) {
-            if (!token.endsWith("]")) fail("List missing ']'", token);
+        if (f < t && b[f] == '[') {
+            if (b[t - 1] != ']' || t - f < 2) fail("List missing ']'", new String(b, f, t - f));
 
-            String inner = token.substring(1, token.length() - 1).trim();
-            if (inner.isEmpty()) {
+            int is = skipWs(b, f + 1, Math.max(f + 1, t - 1)), ie = trimEnd(b, is, Math.max(f + 1, t - 1));
+            if (is == ie) {
                 v.type = ValueType.LIST;
                 v.list = new ArrayList<>();
                 return v;
             }
 
-            List<Value> parts = parseList(inner);
+            List<Value> parts = parseList(b, is, ie);
+            if (parts instanceof PackedList) {
+                v.type = ValueType.LIST;
+                v.list = parts;
+                return v;
+            }
 
-            boolean b = false, val = false;
+            boolean br = false, val = false;
             for (Value x : parts) {
-                if (x.branchList != null) b = true;
+                if (x.branchList != null) br = true;
                 else val = true;
             }
 
-            if (b && val) fail("Mixed list types", inner);
+            if (br && val) fail("Mixed list types", new String(b, is, ie - is));
 
-            if (b) {
+            if (br) {
                 v.type = ValueType.LIST_OF_BRANCHES;
                 v.branchList = new ArrayList<>();
-                for (Value x : parts) v.branchList.addAll(x.branchList);
+                for (Value x : parts) if (x.branchList != null) v.branchList.addAll(x.branchList);
                 return v;
             }
 
             v.type = ValueType.LIST;
-            v.list = new ArrayList<>();
-            v.list.addAll(parts);
+            v.list = parts;
             return v;
         }
 
-        if (token.equals("true") || token.equals("false")) {
+        if (is(b, f, t, "true") || is(b, f, t, "false")) {
             v.type = ValueType.BOOL;
-            v.iv = token.equals("true") ? 1 : 0;
+            v.iv = t - f == 4 ? 1 : 0;
             return v;
         }
 
-        try {
-            if (token.contains(".") || token.contains("e") || token.contains("E")) {
-                v.type = ValueType.DOUBLE;
-                v.dv = Double.parseDouble(token);
-            } else {
-                v.iv = Long.parseLong(token);
-                v.type = (v.iv >= Integer.MIN_VALUE && v.iv <= Integer.MAX_VALUE) ? ValueType.INT : ValueType.LONG;
-            }
-            return v;
-        } catch (Throwable ignore) {
-        }
+        if (Numbers.parse(b, f, t, v)) return v;
 
-        if (token.startsWith("{") && token.endsWith("}")) {
-            Node n = new VersaParser(token).parse();
+        if (t - f >= 2 && b[f] == '{' && b[t - 1] == '}') {
+            Node n = sub(b, f, t, 0, true).parse();
             Value out = new Value();
             out.type = ValueType.LIST_OF_BRANCHES;
             out.branchList = n.children;
@@ -302,112 +897,192 @@ public class VersaParser {
         }
 
         v.type = ValueType.STRING;
-        v.sv = stripQuotes(token).replace("\\n", "\n");
+        v.sv = unescape(b, f, t);
         return v;
     }
 
-    private Value parseListElement(String s) {
-        s = s.trim();
-        if (s.startsWith("{") && s.endsWith("}")) {
-            String wrap = "root " + s;
-            Node n = new VersaParser(wrap).parse();
+    private Value parseListElement(char[] b, int f, int t) {
+        if (t - f >= 2 && b[f] == '{' && b[t - 1] == '}') {
             Value v = new Value();
             v.type = ValueType.LIST_OF_BRANCHES;
-            v.branchList = Collections.singletonList(n.children.get(0));
+            v.branchList = Collections.singletonList(sub(b, f, t, 0, true).parseElement());
             return v;
         }
-        return parseValueFromString(s);
+        return parseValueFromString(b, f, t);
     }
 
-    private List<Value> parseList(String s) {
-        List<Value> out = new ArrayList<>();
+    /**
+     * Parses a {@code { ... }} list element straight from its range, as a branch named "root".
+     * The first line is read as if it were prefixed with {@code "root "}, so the element is parsed
+     * exactly like the text {@code "root { ... }"} without building that string.
+     */
+    private Node parseElement() {
+        TreeBuilder t = new TreeBuilder();
+        nextLine();
+        open.push("root");
+        t.startBranch("root", inlineComment(lineStart + 1, lineEnd, CommentType.START_BRANCH));
+        ln++;
+        parse(t);
+        return t.root().children.get(0);
+    }
+
+    /**
+     * Splits a list body into elements. While every element is a scalar of one kind they go straight into
+     * a {@link PackedList} without a {@link Value} each; the first element that breaks the run turns the
+     * list into a plain one.
+     */
+    private List<Value> parseList(char[] b, int f, int t) {
+        PackedList.Builder pk = new PackedList.Builder();
+        List<Value> out = null;
         int d = 0;
         boolean q = false;
-        int start = 0;
+        int start = f;
 
-        for (int i = 0; i < s.length(); i++) {
-            char c = s.charAt(i);
-            if (c == '"' && !(i > 0 && s.charAt(i - 1) == '\\')) q = !q;
+        for (int i = f; i < t; i++) {
+            char c = b[i];
+            if (c == '"' && !(i > f && b[i - 1] == '\\')) q = !q;
             if (!q) {
                 if (c == '{' || c == '[') d++;
                 if (c == '}' || c == ']') d--;
             }
             if (c == ',' && d == 0) {
-                out.add(parseListElement(s.substring(start, i).trim()));
+                int s = skipWs(b, start, i);
+                out = element(pk, out, b, s, trimEnd(b, s, i));
                 start = i + 1;
             }
         }
 
-        if (start < s.length()) out.add(parseListElement(s.substring(start).trim()));
+        if (start < t) {
+            int s = skipWs(b, start, t);
+            out = element(pk, out, b, s, trimEnd(b, s, t));
+        }
+        if (out != null) return out;
+        return pk.size() == 0 ? new ArrayList<>() : pk.build();
+    }
+
+    private List<Value> element(PackedList.Builder pk, List<Value> out, char[] b, int f, int t) {
+        if (out == null) {
+            if (pack(pk, b, f, t)) return null;
+            out = pk.values();
+        }
+        out.add(parseListElement(b, f, t));
         return out;
     }
 
-    private String stripQuotes(String s) {
-        s = s.trim();
-        if (s.startsWith("\"") && s.endsWith("\"") && s.length() >= 2) return s.substring(1, s.length() - 1);
-        return s;
+    /**
+     * Adds a list element to {@code pk} if it is a scalar of the kind collected so far.
+     * Anything else, including malformed elements, is left to {@link #parseListElement}.
+     */
+    private boolean pack(PackedList.Builder pk, char[] b, int f, int t) {
+        t = trimEnd(b, f, cutComment(b, f, t));
+        f = skipWs(b, f, t);
+        if (f >= t || raw && b == buf && !ascii(b, f, t)) return false;
+
+        char c = b[f];
+        if (c == '"') return t - f >= 2 && b[t - 1] == '"' && pk.add(unescape(b, f + 1, t - 1));
+        if (c == '[' || c == '{') return false;
+        if (is(b, f, t, "true") || is(b, f, t, "false")) return pk.add(t - f == 4);
+        if (Numbers.parse(b, f, t, scratch)) return scratch.type == ValueType.DOUBLE ? pk.add(scratch.dv) : pk.add(scratch.iv);
+        return pk.add(unescape(b, f, t));
     }
 
-    private String stripInlineComment(String s) {
+    private Comment inlineComment(int from, int to, CommentType type) {
         boolean inQ = false;
-        for (int i = 0; i < s.length(); i++) {
-            char c = s.charAt(i);
-            if (c == '"' && !(i > 0 && s.charAt(i - 1) == '\\')) inQ = !inQ;
+
+        for (int i = skip(from, to); i < to; i = skip(i + 1, to)) {
+            char c = buf[i];
+            if (c == '"' && buf[i - 1] != '\\') inQ = !inQ;
+
             if (!inQ) {
-                if (c == '/' && i + 1 < s.length() && s.charAt(i + 1) == '/') return s.substring(0, i);
-                if (c == '#') return s.substring(0, i);
+                boolean slash = (c == '/' && i + 1 < to && buf[i + 1] == '/');
+
+                if (slash || c == '#') {
+                    int s = i + (slash ? 2 : 1);
+                    return new Comment(type, str(buf, s, to), slash);
+                }
             }
         }
-        return s;
+        return null;
     }
 
-    private String findInlineComment(String line, int start) {
-        int i = start;
+    private static int cutComment(char[] b, int f, int t) {
         boolean inQ = false;
-        for (; i < line.length(); i++) {
-            char c = line.charAt(i);
-            if (c == '"' && !(i > 0 && line.charAt(i - 1) == '\\')) inQ = !inQ;
-            if (!inQ) {
-                if (c == '/' && i + 1 < line.length() && line.charAt(i + 1) == '/') return line.substring(i + 2);
-                if (c == '#') return line.substring(i + 1);
-            }
+        for (int i = f; i < t; i++) {
+            char c = b[i];
+            if (c == '"' && !(i > f && b[i - 1] == '\\')) inQ = !inQ;
+            if (!inQ && (c == '#' || (c == '/' && i + 1 < t && b[i + 1] == '/'))) return i;
         }
-        return null;
+        return t;
     }
 
-    private void addInlineComment(String line, int start, Object target, CommentType type) {
-        boolean inQ = false;
-        int len = line.length();
+    private String unescape(char[] b, int f, int t) {
+        int i = f;
+        while (i + 1 < t && !(b[i] == '\\' && b[i + 1] == 'n')) i++;
+        if (i + 1 >= t) return text(b, f, t);
+
+        StringBuilder sb = new StringBuilder(t - f).append(b, f, i - f);
+        while (i < t) {
+            if (b[i] == '\\' && i + 1 < t && b[i + 1] == 'n') {
+                sb.append('\n');
+                i += 2;
+            } else sb.append(b[i++]);
+        }
+        return sb.toString();
+    }
 
-        for (int i = start; i < len; i++) {
-            char c = line.charAt(i);
-            if (c == '"' && !(i > 0 && line.charAt(i - 1) == '\\')) inQ = !inQ;
+    private static boolean is(char[] b, int f, int t, String s) {
+        if (t - f != s.length()) return false;
+        for (int i = 0; i < s.length(); i++) if (b[f + i] != s.charAt(i)) return false;
+        return true;
+    }
 
-            if (!inQ) {
-                boolean slash = (c == '/' && i + 1 < len && line.charAt(i + 1) == '/');
-                boolean hash = (c == '#');
+    private String trimmed(char[] b, int f, int t) {
+        f = skipWs(b, f, t);
+        return text(b, f, trimEnd(b, f, t));
+    }
 
-                if (slash || hash) {
-                    String raw = line.substring(i + (slash ? 2 : 1));
-                    Comment comment = new Comment(type, raw, slash);
+    private String text(char[] b, int f, int t) {
+        if (raw && b == buf && !ascii(b, f, t)) {
+            String s = utf8(b, f, t);
+            return pool == null ? s : pool.intern(s);
+        }
+        return pool == null ? new String(b, f, t - f) : pool.intern(b, f, t);
+    }
 
-                    if (target instanceof Node n) n.inlineComments.add(comment);
-                    else if (target instanceof Value v) v.comments.add(comment);
+    /**
+     * Text of {@code [f, t)}, decoding it if it holds raw UTF-8 bytes.
+     */
+    private String str(char[] b, int f, int t) {
+        return raw && b == buf && !ascii(b, f, t) ? utf8(b, f, t) : new String(b, f, t - f);
+    }
 
-                    return;
-                }
-            }
+    /**
+     * Decodes {@code [f, t)} of a raw byte buffer as UTF-8.
+     */
+    private String utf8(char[] b, int f, int t) {
+        byte[] a = new byte[t - f];
+        for (int i = f; i < t; i++) a[i - f] = (byte) b[i];
+        if (dec == null) dec = StandardCharsets.UTF_8.newDecoder();
+        try {
+            return dec.decode(ByteBuffer.wrap(a)).toString();
+        } catch (CharacterCodingException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    private int indexOfNonQuoted(String s, char ch) {
-        boolean inQ = false;
-        for (int i = 0; i < s.length(); i++) {
-            char c = s.charAt(i);
-            if (c == '"' && !(i > 0 && s.charAt(i - 1) == '\\')) inQ = !inQ;
-            if (!inQ && c == ch) return i;
-        }
-        return -1;
+    private static boolean ascii(char[] b, int f, int t) {
+        for (int i = f; i < t; i++) if (b[i] >= 0x80) return false;
+        return true;
+    }
+
+    private static int skipWs(char[] b, int f, int t) {
+        while (f < t && b[f] <= ' ') f++;
+        return f;
+    }
+
+    private static int trimEnd(char[] b, int f, int t) {
+        while (t > f && b[t - 1] <= ' ') t--;
+        return t;
     }
 
     public static class VersaParseException extends RuntimeException {
@@ -415,4 +1090,4 @@ public class VersaParser {
             super(s);
         }
     }
-}
\ No newline at end of file
+}
@@ -5,6 +5,7 @@ import net.vansen.versa.node.Node;
 import net.vansen.versa.node.Value;
 import net.vansen.versa.node.entry.Entry;
 import net.vansen.versa.node.entry.EntryType;
+import net.vansen.versa.node.value.PackedList;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -63,8 +64,9 @@ public class NodeMerge {
     public static Node mergeNodes(@NotNull Node user, @NotNull Node fresh) {
         Node out = new Node();
         out.name = fresh.name;
+        user.load();
 
-        for (Entry e : fresh.order) {
+        for (Entry e : fresh.load().order) {
             if (e.t == EntryType.EMPTY_LINE) {
                 out.order.add(new Entry(EntryType.EMPTY_LINE, ""));
                 continue;
@@ -113,11 +115,12 @@ public class NodeMerge {
      * </ul>
      */
     public static void merge(@NotNull Node user, @NotNull Node defaults) {
-        for (Map.Entry<String, Value> e : defaults.values.entrySet()) {
+        user.load();
+        for (Map.Entry<String, Value> e : defaults.load().values.entrySet()) {
             if (!user.values.containsKey(e.getKey())) {
                 Value v = deepCopyValue(e.getValue());
-                user.values.put(e.getKey(), v);
-                user.order.add(new Entry(EntryType.VALUE, v));
+                v.name = e.getKey();
+                user.addValue(v);
             }
         }
 
@@ -125,9 +128,7 @@ public class NodeMerge {
             Node userChild = user.getBranch(defChild.name);
 
             if (userChild == null) {
-                Node copy = deepCopyNode(defChild);
-                user.children.add(copy);
-                user.order.add(new Entry(EntryType.BRANCH, copy));
+                user.addBranch(deepCopyNode(defChild));
             } else {
                 merge(userChild, defChild);
             }
@@ -146,7 +147,8 @@ public class NodeMerge {
         c.dv = v.dv;
         c.sv = v.sv;
 
-        if (v.list != null) {
+        if (v.list instanceof PackedList p && p.kind() != null) c.list = p.copy();
+        else if (v.list != null) {
             c.list = new ArrayList<>();
             for (Value x : v.list) c.list.add(deepCopyValue(x));
         }
@@ -156,8 +158,9 @@ public class NodeMerge {
             for (Node n : v.branchList) c.branchList.add(deepCopyNode(n));
         }
 
-        for (Comment com : v.comments)
-            c.comments.add(new Comment(com.type, com.text));
+        if (v.hasComments())
+            for (Comment com : v.getComments())
+                c.addComment(new Comment(com.type, com.text));
 
         return c;
     }
@@ -170,7 +173,7 @@ public class NodeMerge {
         Node c = new Node();
         c.name = n.name;
 
-        for (Value v : n.values.values()) {
+        for (Value v : n.load().values.values()) {
             Value copy = deepCopyValue(v);
             c.values.put(copy.name, copy);
         }
@@ -180,7 +183,7 @@ public class NodeMerge {
         for (Entry e : n.order) {
             if (e.t == EntryType.VALUE) c.order.add(new Entry(EntryType.VALUE, c.values.get(((Value) e.o).name)));
             else if (e.t == EntryType.BRANCH)
-                c.order.add(new Entry(EntryType.BRANCH, c.children.stream().filter(x -> x.name.equals(((Node) e.o).name)).findFirst().orElse(null)));
+                c.order.add(new Entry(EntryType.BRANCH, c.getBranch(((Node) e.o).name)));
             else c.order.add(new Entry(e.t, e.o));
         }
 
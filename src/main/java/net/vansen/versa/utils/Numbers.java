@@ -0,0 +1,167 @@
+package net.vansen.versa.utils;
+
+import net.vansen.versa.node.Value;
+import net.vansen.versa.node.value.ValueType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Number parsing and formatting for config literals.
+ * <p>
+ * Parsing works on a {@code char[]} range and never throws. The syntax is checked first,
+ * with the same rules as {@link Long#parseLong} and {@link Double#parseDouble}. Common literals
+ * (up to 15 significant digits and a decimal exponent within ±22) are then computed with a
+ * single exactly-rounded multiply or divide (Clinger's fast path). Only rare literals go through
+ * the JDK parsers.
+ * <p>
+ * Formatting produces the shortest decimal that reads back to the same double, in the same
+ * layout as {@link Double#toString(double)}.
+ */
+@SuppressWarnings("unused")
+public final class Numbers {
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final double EXACT = 1L << 53;
+
+    private Numbers() {
+    }
+
+    /**
+     * Parses {@code [f, t)} as a number literal into {@code v}.
+     * Literals with '.', 'e' or 'E' become {@link ValueType#DOUBLE}, other integers
+     * {@link ValueType#INT} or {@link ValueType#LONG} depending on their range.
+     *
+     * @return false, leaving {@code v} untouched, if the range is not a number
+     */
+    public static boolean parse(char @NotNull [] b, int f, int t, @NotNull Value v) {
+        if (f >= t) return false;
+        for (int i = f; i < t; i++) {
+            char c = b[i];
+            if (c == '.' || c == 'e' || c == 'E') return parseDouble(b, f, t, v);
+        }
+        return parseLong(b, f, t, v);
+    }
+
+    private static boolean parseLong(char[] b, int f, int t, Value v) {
+        int i = f;
+        boolean neg = b[i] == '-';
+        if (neg || b[i] == '+') i++;
+        if (i == t) return false;
+
+        long m = 0;
+        for (int j = i; j < t; j++) {
+            char c = b[j];
+            if (c >= '0' && c <= '9') m = m * 10 + (c - '0');
+            else if (c < 0x80) return false;
+            else return slow(b, f, t, v, false);
+        }
+        if (t - i > 18) return slow(b, f, t, v, false);
+
+        v.iv = neg ? -m : m;
+        v.type = (v.iv >= Integer.MIN_VALUE && v.iv <= Integer.MAX_VALUE) ? ValueType.INT : ValueType.LONG;
+        return true;
+    }
+
+    private static boolean parseDouble(char[] b, int f, int t, Value v) {
+        while (f < t && b[f] <= ' ') f++;
+        while (t > f && b[t - 1] <= ' ') t--;
+        if (f == t) return false;
+        int i = f;
+        boolean neg = b[i] == '-';
+        if (neg || b[i] == '+') i++;
+        if (i + 1 < t && b[i] == '0' && (b[i + 1] == 'x' || b[i + 1] == 'X')) return slow(b, f, t, v, true);
+
+        long m = 0;
+        int nd = 0, sig = 0, exp = 0;
+        boolean dot = false;
+        for (; i < t; i++) {
+            char c = b[i];
+            if (c == '.') {
+                if (dot) return false;
+                dot = true;
+                continue;
+            }
+            if (c < '0' || c > '9') break;
+            nd++;
+            if (dot) exp--;
+            if (m == 0 && c == '0') continue;
+            if (++sig <= 18) m = m * 10 + (c - '0');
+        }
+        if (nd == 0) return false;
+
+        if (i < t && (b[i] == 'e' || b[i] == 'E')) {
+            i++;
+            boolean en = i < t && b[i] == '-';
+            if (en || (i < t && b[i] == '+')) i++;
+            int s = i, e = 0;
+            for (; i < t && b[i] >= '0' && b[i] <= '9'; i++) if (e < 100000) e = e * 10 + (b[i] - '0');
+            if (i == s) return false;
+            exp += en ? -e : e;
+        }
+        if (i < t && (b[i] == 'f' || b[i] == 'F' || b[i] == 'd' || b[i] == 'D')) i++;
+        if (i != t) return false;
+
+        double d;
+        if (m == 0) d = 0;
+        else if (sig <= 15 && exp >= -22 && exp <= 22) d = exp < 0 ? m / POW10[-exp] : m * POW10[exp];
+        else return slow(b, f, t, v, true);
+
+        v.type = ValueType.DOUBLE;
+        v.dv = neg ? -d : d;
+        return true;
+    }
+
+    /**
+     * Hands literals the fast path does not cover to the JDK parsers.
+     */
+    private static boolean slow(char[] b, int f, int t, Value v, boolean dbl) {
+        String s = new String(b, f, t - f);
+        try {
+            if (dbl) {
+                v.dv = Double.parseDouble(s);
+                v.type = ValueType.DOUBLE;
+            } else {
+                v.iv = Long.parseLong(s);
+                v.type = (v.iv >= Integer.MIN_VALUE && v.iv <= Integer.MAX_VALUE) ? ValueType.INT : ValueType.LONG;
+            }
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Formats a double as the shortest decimal that parses back to the same value.
+     * Values from 0.001 up to 10^7 are written in plain notation, with at least one
+     * fractional digit. Values outside that range use {@link Double#toString(double)}.
+     *
+     * @param d value to format
+     * @return formatted value
+     */
+    public static @NotNull String toString(double d) {
+        double a = Math.abs(d);
+        if (a >= 1e-3 && a < 1e7) {
+            for (int k = 0; k < POW10.length; k++) {
+                double s = a * POW10[k];
+                if (s >= EXACT) break;
+                long m = Math.round(s);
+                if (m / POW10[k] == a) return plain(d < 0, m, k);
+            }
+        }
+        return Double.toString(d);
+    }
+
+    private static String plain(boolean neg, long m, int k) {
+        String s = Long.toString(m);
+        StringBuilder sb = new StringBuilder(s.length() + k + 3);
+        if (neg) sb.append('-');
+        if (k == 0) return sb.append(s).append(".0").toString();
+        if (s.length() <= k) {
+            sb.append("0.");
+            for (int i = s.length(); i < k; i++) sb.append('0');
+            return sb.append(s).toString();
+        }
+        return sb.append(s, 0, s.length() - k).append('.').append(s, s.length() - k, s.length()).toString();
+    }
+}
@@ -0,0 +1,137 @@
+package net.vansen.versa.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A bounded pool that lets identical keys, branch names and short string values share one
+ * {@link String} instance across parses.
+ * <p>
+ * The pool is a fixed-size hash table where every bucket holds two strings. New strings enter the
+ * second slot of their bucket and move to the first one when they are looked up again, so keys
+ * that repeat across parses are not pushed out by one-off values. Memory use never grows past the
+ * table, and strings longer than {@code maxLength} are never pooled. Lookups from a {@code char[]}
+ * range only allocate on a miss.
+ * <p>
+ * The pool is safe to share between threads without locking: racing writers may overwrite each
+ * other's entries, which only costs a later miss.
+ * <p>
+ * Pooling is off by default. Set a pool per parser with {@code VersaParser.pool}, or set a global
+ * one with {@link #setGlobal(StringPool)}, which parsers and the builders pick up.
+ */
+@SuppressWarnings("unused")
+public final class StringPool {
+    private static volatile StringPool global;
+
+    private final String[] table;
+    private final int mask;
+    private final int maxLength;
+
+    /**
+     * Creates a pool holding up to 4096 strings of up to 64 chars.
+     */
+    public StringPool() {
+        this(4096, 64);
+    }
+
+    /**
+     * Creates a pool.
+     *
+     * @param capacity  number of strings held, rounded up to a power of two
+     * @param maxLength longest string that is pooled
+     */
+    public StringPool(int capacity, int maxLength) {
+        int n = 16;
+        while (n < capacity) n <<= 1;
+        this.table = new String[n];
+        this.mask = n - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return the global pool, or null if pooling is off
+     */
+    public static @Nullable StringPool global() {
+        return global;
+    }
+
+    /**
+     * Sets the pool used by parsers created afterwards and by the builders.
+     *
+     * @param pool new global pool, or null to turn global pooling off
+     */
+    public static void setGlobal(@Nullable StringPool pool) {
+        global = pool;
+    }
+
+    /**
+     * Interns through the global pool, if one is set.
+     *
+     * @param s string to share
+     * @return the pooled instance, or {@code s} itself
+     */
+    public static String shared(@Nullable String s) {
+        StringPool p = global;
+        return p == null || s == null ? s : p.intern(s);
+    }
+
+    /**
+     * @param s string to share
+     * @return the pooled instance equal to {@code s}, or {@code s} after pooling it
+     */
+    public @NotNull String intern(@NotNull String s) {
+        if (s.length() > maxLength) return s;
+        int i = slot(s.hashCode());
+        String c = table[i];
+        if (s.equals(c)) return c;
+        String d = table[i + 1];
+        if (s.equals(d)) return promote(i, c, d);
+        table[i + 1] = s;
+        return s;
+    }
+
+    /**
+     * @return the pooled string with the characters {@code [from, to)} of {@code b}, creating it on a miss
+     */
+    public @NotNull String intern(char @NotNull [] b, int from, int to) {
+        int len = to - from;
+        if (len > maxLength) return new String(b, from, len);
+
+        int h = 0;
+        for (int i = from; i < to; i++) h = 31 * h + b[i];
+        int i = slot(h);
+        String c = table[i];
+        if (c != null && matches(c, b, from, len)) return c;
+        String d = table[i + 1];
+        if (d != null && matches(d, b, from, len)) return promote(i, c, d);
+
+        String s = new String(b, from, len);
+        table[i + 1] = s;
+        return s;
+    }
+
+    /**
+     * Drops every pooled string.
+     */
+    public void clear() {
+        Arrays.fill(table, null);
+    }
+
+    private int slot(int h) {
+        return (h ^ (h >>> 16)) & mask & ~1;
+    }
+
+    private String promote(int i, String c, String d) {
+        table[i] = d;
+        table[i + 1] = c;
+        return d;
+    }
+
+    private static boolean matches(String c, char[] b, int from, int len) {
+        if (c.length() != len) return false;
+        for (int i = 0; i < len; i++) if (c.charAt(i) != b[from + i]) return false;
+        return true;
+    }
+}
@@ -0,0 +1,48 @@
+package net.vansen.versa.parser;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Builds {@link StructuralIndex} words with the incubating Vector API, comparing a whole
+ * vector of chars against each structural char at once and packing the lane mask straight into the word.
+ * <p>
+ * Lives in the {@code vector} source set, the only one compiled against {@code jdk.incubator.vector}.
+ * {@link StructuralIndex} looks it up reflectively, and only when that module is in the boot layer.
+ */
+final class VectorIndex {
+    private static final VectorSpecies<Short> S = ShortVector.SPECIES_PREFERRED;
+    private static final short[] CHARS = {'\n', '"', '#', '/', ':', '=', '[', ']', '{', '}'};
+
+    private VectorIndex() {
+    }
+
+    /**
+     * @return whether a vector fits a 64 bit word a whole number of times
+     */
+    static boolean usable() {
+        return S.length() <= 64 && 64 % S.length() == 0;
+    }
+
+    /**
+     * Fills {@code bits} for every full 64 char word of {@code [0, end)} of {@code b}.
+     *
+     * @return the number of words filled
+     */
+    static int fill(char[] b, int end, long[] bits) {
+        int l = S.length(), words = end >>> 6;
+        for (int w = 0; w < words; w++) {
+            int base = w << 6;
+            long m = 0;
+            for (int o = 0; o < 64; o += l) {
+                ShortVector v = ShortVector.fromCharArray(S, b, base + o);
+                VectorMask<Short> hit = v.eq(CHARS[0]);
+                for (int k = 1; k < CHARS.length; k++) hit = hit.or(v.eq(CHARS[k]));
+                m |= hit.toLong() << o;
+            }
+            bits[w] = m;
+        }
+        return words;
+    }
+}